@@ -0,0 +1,22 @@
+/**
+ * @authors https://github.com/ravixr/dfa-minimization
+ */
+
+package dfa;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+// Runs the JMH benchmarks with the GC profiler always enabled, to report the allocation rate
+class BenchmarkMain {
+
+    // Usage: java -jar target/benchmarks.jar [JMH options]
+    public static void main(String[] args) throws Exception {
+        new Runner(new OptionsBuilder()
+                .parent(new CommandLineOptions(args))
+                .addProfiler(GCProfiler.class)
+                .build()).run();
+    }
+}
@@ -0,0 +1,79 @@
+/**
+ * @authors https://github.com/ravixr/dfa-minimization
+ */
+
+package dfa;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Reading, writing and copying automata of the generated DFA families
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class IOBenchmark {
+
+    // See MinimizationBenchmark.generate
+    @Param({"random-2", "random-8", "binmult", "double"})
+    public String family;
+
+    @Param({"1000", "100000"})
+    public int nStates;
+
+    private DFA dfa;
+    private Path jflapFile;
+    private Path binaryFile;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        dfa = MinimizationBenchmark.generate(family, nStates);
+        jflapFile = Files.createTempFile("bench", ".jff");
+        binaryFile = Files.createTempFile("bench", BinaryDFA.EXTENSION);
+        dfa.writeJFLAPXML(jflapFile);
+        BinaryDFA.write(dfa, binaryFile);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        Files.deleteIfExists(jflapFile);
+        Files.deleteIfExists(binaryFile);
+    }
+
+    // What DFA.FromJFLAPXML runs once the path is resolved
+    @Benchmark
+    public DFA fromJFLAPXML() throws Exception {
+        return JFLAPLoader.load(jflapFile);
+    }
+
+    @Benchmark
+    public String toJFLAPXML() {
+        return dfa.toJFLAPXML();
+    }
+
+    @Benchmark
+    public DFA fromBinary() throws Exception {
+        return BinaryDFA.load(binaryFile);
+    }
+
+    @Benchmark
+    public DFA cloneDFA() {
+        return dfa.clone();
+    }
+}
@@ -0,0 +1,77 @@
+/**
+ * @authors https://github.com/ravixr/dfa-minimization
+ */
+
+package dfa;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Scanning 64 MB of input with a minimized DFA, one thread and all of them
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatcherBenchmark {
+    private static final int INPUT_SIZE = 64 << 20;
+
+    @Param({"random", "binmult"})
+    public String family;
+
+    @Param({"1000", "100000"})
+    public int nStates;
+
+    private DFAMatcher matcher;
+    private ByteBuffer input;
+    private final int nThreads = Runtime.getRuntime().availableProcessors();
+
+    @Setup(Level.Trial)
+    public void setup() {
+        DFA dfa;
+        String alphabet;
+        if (family.equals("binmult")) {
+            dfa = DFA.generateBinMultN(nStates);
+            alphabet = "01";
+        } else {
+            alphabet = "abcdefgh";
+            List<String> symbolSet = new ArrayList<>();
+            for (char c : alphabet.toCharArray()) {
+                symbolSet.add(String.valueOf(c));
+            }
+            dfa = DFA.generateDFA(nStates, symbolSet, MinimizationBenchmark.SEED, 0.1, Math.max(1, nStates / 10));
+        }
+        matcher = new DFAMatcher(dfa.hopcroftMinimization());
+        SplittableRandom random = new SplittableRandom(MinimizationBenchmark.SEED);
+        input = ByteBuffer.allocateDirect(INPUT_SIZE);
+        for (int i = 0; i < INPUT_SIZE; i++) {
+            input.put(i, (byte) alphabet.charAt(random.nextInt(alphabet.length())));
+        }
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return matcher.matches(input);
+    }
+
+    @Benchmark
+    public boolean matchesParallel() {
+        return matcher.matches(input, nThreads);
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * @authors https://github.com/ravixr/dfa-minimization
+ */
+
+package dfa;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+// Minimizers over the generated DFA families, by number of states and alphabet size
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MinimizationBenchmark {
+
+    // random-k: generateDFA, classes-k: generateDFA with nStates / 10 classes, both over k symbols,
+    // binmult: generateBinMultN, double: generateDoubleStateTest, both over 2 symbols
+    @Param({"random-2", "random-8", "classes-2", "classes-8", "binmult", "double"})
+    public String family;
+
+    @Param({"100", "1000"})
+    public int nStates;
+
+    // Every trial times the same automata
+    static final long SEED = 42;
+
+    private DFA dfa;
+    private DFA min;
+    // Operand of the product benchmark, a minimized automaton of the same family
+    private DFA other;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        dfa = generate(family, nStates);
+        // Verify the minimizers before timing them
+        min = dfa.hopcroftMinimization();
+        other = generate(family, Math.max(2, nStates / 100)).hopcroftMinimization();
+        DFA[] results = {dfa.stdMinimization(), dfa.stdMinimization2(), dfa.valmariMinimization(),
+                dfa.signatureMinimization(), dfa.parallelMinimization(Runtime.getRuntime().availableProcessors())};
+        for (DFA result : results) {
+            List<String> word = dfa.counterexample(result);
+            if (word != null || result.nStates != min.nStates) {
+                throw new IllegalStateException("Minimizers disagree on " + family + "/" + nStates
+                        + ", counterexample " + word);
+            }
+        }
+    }
+
+    // The alphabet size follows the name of the families that take one, as in "random-8"
+    static DFA generate(String family, int nStates) {
+        int dash = family.indexOf('-');
+        int alphabetSize = dash == -1 ? 2 : Integer.parseInt(family.substring(dash + 1));
+        List<String> symbolSet = new ArrayList<>();
+        for (int i = 0; i < alphabetSize; i++) {
+            symbolSet.add("s" + i);
+        }
+        switch (dash == -1 ? family : family.substring(0, dash)) {
+            case "random":
+                return DFA.generateDFA(nStates, symbolSet, SEED, 0.1, 0);
+            case "classes":
+                return DFA.generateDFA(nStates, symbolSet, SEED, 0.1, Math.max(1, nStates / 10));
+            case "binmult":
+                return DFA.generateBinMultN(nStates);
+            case "double":
+                return DFA.generateDoubleStateTest(nStates);
+            default:
+                throw new IllegalArgumentException("Unknown DFA family: " + family);
+        }
+    }
+
+    @Benchmark
+    public DFA stdMinimization() {
+        return dfa.stdMinimization();
+    }
+
+    @Benchmark
+    public DFA stdMinimization2() {
+        return dfa.stdMinimization2();
+    }
+
+    @Benchmark
+    public DFA hopcroftMinimization() {
+        return dfa.hopcroftMinimization();
+    }
+
+    @Benchmark
+    public DFA valmariMinimization() {
+        return dfa.valmariMinimization();
+    }
+
+    @Benchmark
+    public DFA signatureMinimization() {
+        return dfa.signatureMinimization();
+    }
+
+    @Benchmark
+    public DFA parallelMinimization() {
+        return dfa.parallelMinimization(Runtime.getRuntime().availableProcessors());
+    }
+
+    @Benchmark
+    public boolean equivalent() {
+        return dfa.equivalent(min);
+    }
+
+    @Benchmark
+    public DFA intersection() {
+        return dfa.intersection(other);
+    }
+}
@@ -0,0 +1,21 @@
+/**
+ * @authors https://github.com/ravixr/dfa-minimization
+ */
+
+import java.util.List;
+
+// Read-only view of the states and transitions of a deterministic automaton
+interface Automaton {
+    int nStates();
+
+    List<String> symbolSet();
+
+    int initialState();
+
+    boolean isFinal(int state);
+
+    /**
+     * @return The state reached from state on the symbol with the given index, or -1 if undefined.
+     */
+    int next(int state, int symbol);
+}
@@ -0,0 +1,198 @@
+/**
+ * @authors https://github.com/ravixr/dfa-minimization
+ */
+
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+// Minimizes many automaton files concurrently: I/O on virtual threads, minimization on a fixed pool
+class BatchMinimizer {
+    private final int method;
+    private final int threads;
+    private final MinimizationCache cache;
+
+    private static class FileResult {
+        public Path path;
+        public Path output;
+        public int states;
+        public int minStates;
+        public long loadNanos;
+        public long minNanos;
+        public long verifyNanos;
+        public long saveNanos;
+        public Exception error;
+    }
+
+    public BatchMinimizer(int method, int threads, MinimizationCache cache) {
+        this.method = method;
+        this.threads = threads;
+        this.cache = cache;
+    }
+
+    /**
+     * @param pattern A directory, whose .jff and binary files are minimized recursively, or a glob
+     *                such as "tests/*.jff".
+     * @return The files matched by the pattern, excluding previous minimization outputs.
+     */
+    public static List<Path> findFiles(String pattern) throws IOException {
+        Path dir = Paths.get(pattern);
+        PathMatcher matcher;
+        if (Files.isDirectory(dir)) {
+            matcher = p -> p.toString().endsWith(".jff") || p.toString().endsWith(BinaryDFA.EXTENSION);
+        } else {
+            // The walked paths are normalized, so the pattern must be as well
+            pattern = normalize(pattern);
+            // The directory part before the first glob character is walked
+            int glob = pattern.length();
+            for (String c : new String[] {"*", "?", "[", "{"}) {
+                if (pattern.contains(c)) {
+                    glob = Math.min(glob, pattern.indexOf(c));
+                }
+            }
+            int slash = pattern.lastIndexOf('/', glob);
+            dir = Paths.get(slash == -1 ? "." : pattern.substring(0, slash + 1));
+            matcher = FileSystems.getDefault().getPathMatcher("glob:" + pattern);
+        }
+        try (Stream<Path> files = Files.walk(dir)) {
+            return files.map(Path::normalize)
+                    .filter(Files::isRegularFile)
+                    .filter(matcher::matches)
+                    .filter(p -> !p.getFileName().toString().contains(".min."))
+                    .sorted()
+                    .collect(Collectors.toList());
+        }
+    }
+
+    // Path.normalize for a glob, which may not parse as a path: drops "." segments and empty
+    // ones, and ".." after a named segment
+    private static String normalize(String pattern) {
+        List<String> segments = new ArrayList<>();
+        for (String segment : pattern.split("/")) {
+            if (segment.isEmpty() || segment.equals(".")) {
+                continue;
+            }
+            if (segment.equals("..") && !segments.isEmpty() && !segments.get(segments.size() - 1).equals("..")) {
+                segments.remove(segments.size() - 1);
+            } else {
+                segments.add(segment);
+            }
+        }
+        return (pattern.startsWith("/") ? "/" : "") + String.join("/", segments);
+    }
+
+    public void run(List<Path> files) throws Exception {
+        long start = System.nanoTime();
+        List<FileResult> results = new ArrayList<>();
+        ExecutorService cpu = Executors.newFixedThreadPool(threads);
+        // Bounds the number of automata held in memory at the same time
+        Semaphore inFlight = new Semaphore(2 * threads);
+        try (ExecutorService io = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<FileResult>> futures = new ArrayList<>();
+            for (Path file : files) {
+                futures.add(io.submit(() -> {
+                    inFlight.acquire();
+                    try {
+                        return process(file, cpu);
+                    } finally {
+                        inFlight.release();
+                    }
+                }));
+            }
+            for (Future<FileResult> future : futures) {
+                results.add(future.get());
+            }
+        } finally {
+            cpu.shutdown();
+        }
+        long wall = System.nanoTime() - start;
+        printSummary(results, wall);
+        System.out.printf(Locale.ROOT, "Cache: %d hits, %d waits, %d disk hits, %d misses%n", cache.hits(), cache.waits(),
+                cache.diskHits(), cache.misses());
+    }
+
+    private FileResult process(Path file, ExecutorService cpu) {
+        FileResult result = new FileResult();
+        result.path = file;
+        try {
+            long t = System.nanoTime();
+            boolean binary = BinaryDFA.isBinary(file);
+            // Mapped for method 3, so the cache and Hopcroft's algorithm read the file in place
+            Automaton dfa = Main.load(file, method, MinimizationStats.disabled());
+            result.loadNanos = System.nanoTime() - t;
+            result.states = dfa.nStates();
+
+            t = System.nanoTime();
+            DFA min = cpu.submit(() -> cache.minimize(dfa, d -> Main.minimize(d, method, 1))).get();
+            result.minNanos = System.nanoTime() - t;
+            result.minStates = min.nStates;
+
+            t = System.nanoTime();
+            cpu.submit(() -> {
+                Main.verify(dfa, min);
+                return null;
+            }).get();
+            result.verifyNanos = System.nanoTime() - t;
+
+            t = System.nanoTime();
+            String name = file.getFileName().toString();
+            int lastDot = name.lastIndexOf('.');
+            if (lastDot == -1) {
+                lastDot = name.length();
+            }
+            result.output = file.resolveSibling(name.substring(0, lastDot)
+                    + (binary ? ".min" + BinaryDFA.EXTENSION : ".min.jff"));
+            if (binary) {
+                BinaryDFA.write(min, result.output);
+            } else {
+                min.writeJFLAPXML(result.output);
+            }
+            result.saveNanos = System.nanoTime() - t;
+        } catch (Exception e) {
+            result.error = e;
+        }
+        return result;
+    }
+
+    private static void printSummary(List<FileResult> results, long wallNanos) {
+        results.sort(Comparator.comparing(r -> r.path));
+        long states = 0;
+        long load = 0;
+        long min = 0;
+        long verify = 0;
+        long save = 0;
+        int failed = 0;
+        for (FileResult r : results) {
+            if (r.error != null) {
+                failed++;
+                System.out.printf(Locale.ROOT, "%s: FAILED %s%n", r.path, r.error);
+                continue;
+            }
+            states += r.states;
+            load += r.loadNanos;
+            min += r.minNanos;
+            verify += r.verifyNanos;
+            save += r.saveNanos;
+            System.out.printf(Locale.ROOT, "%s: %d -> %d states, load %.1f ms, minimize %.1f ms, save %.1f ms%n",
+                    r.path, r.states, r.minStates, r.loadNanos / 1e6, r.minNanos / 1e6, r.saveNanos / 1e6);
+        }
+        double seconds = wallNanos / 1e9;
+        System.out.printf(Locale.ROOT, "%d files (%d failed), %d states in %.2f s: %.1f files/s, %.0f states/s%n",
+                results.size(), failed, states, seconds, results.size() / seconds, states / seconds);
+        System.out.printf(Locale.ROOT, "Total load %.1f ms, minimize %.1f ms, verify %.1f ms, save %.1f ms%n",
+                load / 1e6, min / 1e6, verify / 1e6, save / 1e6);
+    }
+}
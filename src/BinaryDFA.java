@@ -0,0 +1,166 @@
+/**
+ * @authors https://github.com/ravixr/dfa-minimization
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+/**
+ * Binary DFA format, all values are big-endian ints:
+ *
+ * magic "DFAB", version, nStates, k, initialState,
+ * k symbols (byte length followed by the UTF-8 bytes, padded to 4 bytes),
+ * final states bitset ((nStates + 31) / 32 ints),
+ * transition table (nStates * k ints, -1 for a missing transition).
+ */
+class BinaryDFA {
+    public static final int MAGIC = 0x44464142;
+    public static final int VERSION = 1;
+    public static final String EXTENSION = ".dfab";
+
+    public static void write(Automaton dfa, Path path) throws IOException {
+        int n = dfa.nStates();
+        List<String> symbolSet = dfa.symbolSet();
+        int k = symbolSet.size();
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+            buffer.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(k).putInt(dfa.initialState());
+            for (String symbol : symbolSet) {
+                byte[] bytes = symbol.getBytes(StandardCharsets.UTF_8);
+                ensure(channel, buffer, 4 + bytes.length + 3);
+                buffer.putInt(bytes.length).put(bytes);
+                while (buffer.position() % 4 != 0) {
+                    buffer.put((byte) 0);
+                }
+            }
+            for (int w = 0; w < (n + 31) / 32; w++) {
+                int word = 0;
+                for (int s = 32 * w; s < Math.min(n, 32 * w + 32); s++) {
+                    if (dfa.isFinal(s)) {
+                        word |= 1 << (s & 31);
+                    }
+                }
+                ensure(channel, buffer, 4);
+                buffer.putInt(word);
+            }
+            for (int s = 0; s < n; s++) {
+                for (int a = 0; a < k; a++) {
+                    ensure(channel, buffer, 4);
+                    buffer.putInt(dfa.next(s, a));
+                }
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    private static void ensure(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    public static boolean isBinary(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            while (magic.hasRemaining()) {
+                if (channel.read(magic) == -1) {
+                    return false;
+                }
+            }
+            return magic.getInt(0) == MAGIC;
+        }
+    }
+
+    /**
+     * Maps the file into memory. The transitions are read in place, without copying them to the heap,
+     * after one pass checking that they are in range.
+     */
+    public static MappedDFA map(Path path) throws IOException {
+        return map(path, MinimizationStats.disabled());
+    }
+
+    /**
+     * Like map(path), recording the mapping and the range check as the load phase of stats.
+     */
+    public static MappedDFA map(Path path, MinimizationStats stats) throws IOException {
+        MinimizationStats.Phase phase = stats.begin("load");
+        MappedDFA dfa = mapHeader(path);
+        IntBuffer transitions = dfa.transitions;
+        for (int i = 0; i < transitions.limit(); i++) {
+            checkTarget(transitions.get(i), dfa.nStates());
+        }
+        stats.end(phase);
+        return dfa;
+    }
+
+    // Maps the file, checking everything but the transition targets
+    private static MappedDFA mapHeader(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("File too large to map: " + path);
+            }
+            return new MappedDFA(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    // The initial state must be a state, unless there are none
+    static void checkHeader(int nStates, int k, int initialState) throws IOException {
+        if (nStates < 0 || k < 0 || (long) nStates * k > Integer.MAX_VALUE) {
+            throw new IOException("Invalid binary DFA size: " + nStates + " states, " + k + " symbols");
+        }
+        boolean valid = nStates == 0 ? initialState == -1 || initialState == 0 : initialState >= 0 && initialState < nStates;
+        if (!valid) {
+            throw new IOException("Initial state out of range: " + initialState);
+        }
+    }
+
+    static void checkTarget(int to, int nStates) throws IOException {
+        if (to < -1 || to >= nStates) {
+            throw new IOException("Transition target out of range: " + to);
+        }
+    }
+
+    /**
+     * Loads the file into a DFA on the heap, copying the transition table in bulk.
+     */
+    public static DFA load(Path path) throws IOException {
+        return load(path, MinimizationStats.disabled());
+    }
+
+    /**
+     * Like load(path), recording the load as a phase of stats.
+     */
+    public static DFA load(Path path, MinimizationStats stats) throws IOException {
+        MinimizationStats.Phase phase = stats.begin("load");
+        MappedDFA mapped = mapHeader(path);
+        int n = mapped.nStates();
+        int[] delta = new int[n * mapped.symbolSet().size()];
+        mapped.transitions.get(0, delta);
+        // Checked on the heap copy, a pass over the array rather than over the mapping
+        for (int to : delta) {
+            checkTarget(to, n);
+        }
+        boolean[] finalStates = new boolean[n];
+        for (int s = 0; s < n; s++) {
+            finalStates[s] = mapped.isFinal(s);
+        }
+        DFA dfa = new DFA(n, mapped.symbolSet(), mapped.initialState(), finalStates, delta);
+        stats.end(phase);
+        return dfa;
+    }
+}
@@ -4,19 +4,29 @@
 
 import java.util.List;
 import java.util.Random;
+import java.util.SplittableRandom;
 import java.util.stream.Collectors;
-import javax.xml.stream.XMLInputFactory;
-import javax.xml.stream.XMLStreamConstants;
-import javax.xml.stream.XMLStreamException;
-import javax.xml.stream.XMLStreamReader;
-import java.io.File;
-import java.io.FileInputStream;
-import java.io.InputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
 
 class Transition {
     public int from;
@@ -46,109 +56,233 @@ class State {
 }
 
 // Deterministic Finite Automaton
-class DFA {
-    // Lista de transiçoes, cada transição é um hashmap de char -> int
-    public List<HashMap<String, Integer>> adj;
+class DFA implements Automaton {
+    // Tabela de transiçoes: delta[estado * k + símbolo] = destino, -1 se não houver transição
+    public int[] delta;
+    public int nStates;
     public int initialState;
     public List<State> states;
     public boolean[] finalStates;
     public List<String> symbolSet;
+    // Símbolo -> índice em symbolSet
+    private HashMap<String, Integer> symbolIndex;
 
     public DFA(int nStates, List<String> symbolSet) {
-        this.initialState = -1;
-        
-        this.symbolSet = symbolSet;
-        this.finalStates = new boolean[nStates];
-        this.adj = new ArrayList<>();
-        for (int i = 0; i < nStates; i++) {
-            this.adj.add(new HashMap<>());
-        }
+        this(nStates, symbolSet, -1, new boolean[nStates]);
     }
 
     public DFA(int nStates, List<String> symbolSet, int initialState, boolean[] finalStates) {
+        this.nStates = nStates;
         this.symbolSet = symbolSet;
         this.initialState = initialState;
         this.finalStates = finalStates;
-        this.adj = new ArrayList<>();
-        for (int i = 0; i < nStates; i++) {
-            this.adj.add(new HashMap<>());
+        this.symbolIndex = new HashMap<>();
+        for (int i = 0; i < symbolSet.size(); i++) {
+            this.symbolIndex.put(symbolSet.get(i), i);
         }
+        this.delta = new int[nStates * symbolSet.size()];
+        Arrays.fill(this.delta, -1);
+    }
+
+    // Takes ownership of a transition table laid out as delta[state * k + symbol]
+    DFA(int nStates, List<String> symbolSet, int initialState, boolean[] finalStates, int[] delta) {
+        this(0, symbolSet, initialState, finalStates);
+        this.nStates = nStates;
+        this.delta = delta;
+    }
+
+    @Override
+    public int nStates() {
+        return nStates;
+    }
+
+    @Override
+    public List<String> symbolSet() {
+        return symbolSet;
+    }
+
+    @Override
+    public int initialState() {
+        return initialState;
+    }
+
+    @Override
+    public boolean isFinal(int state) {
+        return finalStates[state];
+    }
+
+    /**
+     * @return The index of the symbol in symbolSet, or -1 if it is not part of the alphabet.
+     */
+    public int symbolId(String symbol) {
+        Integer id = symbolIndex.get(symbol);
+        return id == null ? -1 : id;
+    }
+
+    @Override
+    public int next(int state, int symbol) {
+        return delta[state * symbolSet.size() + symbol];
+    }
+
+    public int next(int state, String symbol) {
+        int a = symbolId(symbol);
+        return a == -1 ? -1 : next(state, a);
     }
-    
+
     public boolean addTransition(int from, int to, String symbol) {
-        if ((from < 0 || from >= adj.size()) || (to < 0 || to >= adj.size()) || adj.get(from).containsKey(symbol)) {
+        return addTransition(from, to, symbolId(symbol));
+    }
+
+    public boolean addTransition(int from, int to, int symbol) {
+        if ((from < 0 || from >= nStates) || (to < 0 || to >= nStates) || symbol < 0 || symbol >= symbolSet.size()
+                || next(from, symbol) != -1) {
             return false;
         }
-        adj.get(from).put(symbol, to);
+        delta[from * symbolSet.size() + symbol] = to;
         return true;
     }
 
-    public static DFA generateDFA(int nStates, List<String> symbolSet) {
-        DFA dfa = new DFA(nStates, symbolSet);
-        dfa.initialState = 0;
-        Random r = new Random();
-        int nFinalStates = 0;
-
-        // Make sure all states are reachable
-        List<Integer> connectedStates = new ArrayList<>();
-        List<Integer> unconnectedStates = new ArrayList<>();
-        for (int i = 1; i < nStates; i++) {
-            unconnectedStates.add(i);
-        }
-        connectedStates.add(dfa.initialState);
-        while (unconnectedStates.size() > 0) {
-            int from = connectedStates.get(r.nextInt(connectedStates.size()));
-            int to = unconnectedStates.get(r.nextInt(unconnectedStates.size()));
-            String symbol = symbolSet.get(r.nextInt(symbolSet.size()));
-            if (dfa.addTransition(from, to, symbol)) {
-                connectedStates.add(to);
-                unconnectedStates.remove(unconnectedStates.indexOf(to));
-            }
-        }
-    
-        // Add rest of transitions
-        List<Integer> cadidateStates = new ArrayList<>();
-        for (int i = 0; i < nStates; i++) {
-            for (int j = 0; j < (symbolSet.size() - dfa.adj.get(i).size()); j++)
-                cadidateStates.add(i);
-        }
-        for (int i = 0; i < nStates; i++) {
-            for (int j = 0; j < symbolSet.size(); j++) {
-                int to = cadidateStates.get(r.nextInt(cadidateStates.size()));
-                dfa.addTransition(i, to, symbolSet.get(j));
+    /**
+     * @return The number of transitions defined for the state.
+     */
+    public int outDegree(int state) {
+        int k = symbolSet.size();
+        int count = 0;
+        for (int i = state * k; i < (state + 1) * k; i++) {
+            if (delta[i] != -1) {
+                count++;
             }
         }
+        return count;
+    }
+
+    public static DFA generateDFA(int nStates, List<String> symbolSet) {
+        return generateDFA(nStates, symbolSet, new Random().nextLong(), 0.1, 0);
+    }
 
-        // Ramdom DFS to mark some states as final
-        boolean[] visited = new boolean[nStates];
-        List<Integer> stack = new ArrayList<>();
-        stack.add(dfa.initialState);
-        while (stack.size() > 0) {
-            int state = stack.get(stack.size() - 1);
-            stack.remove(stack.size() - 1);
-            visited[state] = true;
-            if (r.nextInt(10) == 0) {
-                dfa.finalStates[state] = true;
-                nFinalStates++;
+    /**
+     * Generates a complete DFA whose states are all reachable from the initial state 0. The
+     * same seed always gives the same DFA, however many threads fill it.
+     *
+     * @param finalDensity Probability that a state, or a class, is final. At least one is.
+     * @param nClasses If positive, the DFA is a random nClasses-state DFA with its states
+     *                 copied until there are nStates of them, so it minimizes to at most
+     *                 nClasses states. Otherwise every transition goes to any state.
+     */
+    public static DFA generateDFA(int nStates, List<String> symbolSet, long seed, double finalDensity, int nClasses) {
+        int k = symbolSet.size();
+        SplittableRandom r = new SplittableRandom(seed);
+        DFA quotient = nClasses > 0 && nClasses < nStates
+                ? generateDFA(nClasses, symbolSet, r.nextLong(), finalDensity, 0) : null;
+        int[] stateClass = new int[nStates];
+        int[] delta = new int[nStates * k];
+        Arrays.fill(delta, -1);
+
+        // Spanning tree: every new state takes a random free transition of a connected state
+        int[] free = new int[nStates * k];
+        int nFree = 0;
+        int first = Math.min(1, nStates);
+        if (quotient != null) {
+            // One copy of every class first, connected like the quotient's own spanning tree
+            int[] order = new int[nClasses];
+            int[] copy = new int[nClasses];
+            Arrays.fill(copy, -1);
+            copy[0] = 0;
+            int count = 1;
+            for (int i = 0; i < count; i++) {
+                int c = order[i];
+                for (int a = 0; a < k; a++) {
+                    int to = quotient.next(c, a);
+                    if (copy[to] == -1) {
+                        copy[to] = count;
+                        order[count] = to;
+                        stateClass[count] = to;
+                        delta[copy[c] * k + a] = count++;
+                    }
+                }
             }
-            for (String symbol : symbolSet) {
-                Integer to = dfa.adj.get(state).get(symbol);
-                if (to != null && !visited[to]) {
-                    stack.add(to);
+            first = count;
+        }
+        for (int s = 0; s < first; s++) {
+            for (int a = 0; a < k; a++) {
+                if (delta[s * k + a] == -1) {
+                    free[nFree++] = s * k + a;
                 }
             }
-            if (nFinalStates == 0 && stack.size() == 0) {
-                dfa.finalStates[state] = true;
-                nFinalStates++;
+        }
+        for (int s = first; s < nStates; s++) {
+            int i = r.nextInt(nFree);
+            int slot = free[i];
+            free[i] = free[--nFree];
+            delta[slot] = s;
+            if (quotient != null) {
+                stateClass[s] = quotient.next(stateClass[slot / k], slot % k);
+            }
+            for (int a = 0; a < k; a++) {
+                free[nFree++] = s * k + a;
             }
         }
+        free = null;
 
-        for (int i = 0; i < nStates; i++) {
-            if (dfa.adj.get(i).size() < symbolSet.size()) {
-                System.err.println("Error: State " + i + "trasitions: " + dfa.adj.get(i).size() + " < " + symbolSet.size());
+        // States of each class, to pick transition targets from
+        int[] classStart = null;
+        int[] members = null;
+        if (quotient != null) {
+            classStart = new int[nClasses + 1];
+            for (int s = 0; s < nStates; s++) {
+                classStart[stateClass[s] + 1]++;
+            }
+            for (int c = 0; c < nClasses; c++) {
+                classStart[c + 1] += classStart[c];
+            }
+            members = new int[nStates];
+            int[] fill = Arrays.copyOf(classStart, nClasses);
+            for (int s = 0; s < nStates; s++) {
+                members[fill[stateClass[s]]++] = s;
             }
         }
 
+        // Fill the remaining transitions in parallel, each chunk with its own generator
+        int chunk = 1 << 14;
+        int nChunks = (nStates + chunk - 1) / chunk;
+        SplittableRandom[] randoms = new SplittableRandom[nChunks];
+        for (int c = 0; c < nChunks; c++) {
+            randoms[c] = r.split();
+        }
+        boolean[] finalStates = new boolean[nStates];
+        int[] starts = classStart;
+        int[] classMembers = members;
+        IntStream.range(0, nChunks).parallel().forEach(c -> {
+            SplittableRandom cr = randoms[c];
+            for (int s = c * chunk; s < Math.min(nStates, (c + 1) * chunk); s++) {
+                for (int a = 0; a < k; a++) {
+                    if (delta[s * k + a] == -1) {
+                        if (quotient == null) {
+                            delta[s * k + a] = cr.nextInt(nStates);
+                        } else {
+                            int to = quotient.next(stateClass[s], a);
+                            delta[s * k + a] = classMembers[cr.nextInt(starts[to], starts[to + 1])];
+                        }
+                    }
+                }
+                if (quotient == null) {
+                    finalStates[s] = cr.nextDouble() < finalDensity;
+                } else {
+                    finalStates[s] = quotient.finalStates[stateClass[s]];
+                }
+            }
+        });
+
+        DFA dfa = new DFA(nStates, symbolSet, 0, finalStates, delta);
+        if (quotient == null && nStates > 0) {
+            boolean anyFinal = false;
+            for (int s = 0; s < nStates && !anyFinal; s++) {
+                anyFinal = finalStates[s];
+            }
+            if (!anyFinal) {
+                finalStates[r.nextInt(nStates)] = true;
+            }
+        }
         return dfa;
     }
 
@@ -186,12 +320,8 @@ class DFA {
 
     @Override
     public DFA clone() {
-        DFA newDfa = new DFA(adj.size(), symbolSet, initialState, finalStates);
-        for (int i = 0; i < adj.size(); i++) {
-            for (String symbol : adj.get(i).keySet()) {
-                newDfa.addTransition(i, adj.get(i).get(symbol), symbol);
-            }
-        }
+        DFA newDfa = new DFA(nStates, symbolSet, initialState, Arrays.copyOf(finalStates, nStates));
+        System.arraycopy(delta, 0, newDfa.delta, 0, delta.length);
         return newDfa;
     }
 
@@ -201,12 +331,25 @@ class DFA {
      * @return A minimized version of the DFA.
      */
     public DFA stdMinimization() {
+        return stdMinimization(MinimizationStats.disabled());
+    }
+
+    /**
+     * Like stdMinimization(), recording the phases and counters of the run in stats.
+     */
+    public DFA stdMinimization(MinimizationStats stats) {
+        return withoutUselessStates(stats).stdMinimizationTrimmed(stats);
+    }
+
+    // The refinement itself, on a DFA without useless states
+    private DFA stdMinimizationTrimmed(MinimizationStats stats) {
+        MinimizationStats.Phase phase = stats.begin("refine");
         List<List<State>> Q = new ArrayList<>();
-        int[] statePartition = new int[adj.size()];
+        int[] statePartition = new int[nStates];
         Q.add(new ArrayList<>());
         Q.add(new ArrayList<>());
         // Partition the states in final and non-final states
-        for (int i = 0; i < adj.size(); i++) {
+        for (int i = 0; i < nStates; i++) {
             if (finalStates[i]) {
                 Q.get(1).add(new State(i, "q" + i));
                 statePartition[i] = 1;
@@ -215,49 +358,104 @@ class DFA {
                 statePartition[i] = 0;
             }
         }
-        boolean changed = true;
-        while (changed) {
-            changed = false;
-            for (int i = 0; i < Q.size(); i++) {
+        // Predecessors of every state, on any symbol
+        int k = symbolSet.size();
+        int[] predStart = new int[nStates + 1];
+        for (int i = 0; i < delta.length; i++) {
+            if (delta[i] != -1) {
+                predStart[delta[i] + 1]++;
+            }
+        }
+        for (int i = 0; i < nStates; i++) {
+            predStart[i + 1] += predStart[i];
+        }
+        int[] pred = new int[predStart[nStates]];
+        int[] fill = Arrays.copyOf(predStart, nStates);
+        for (int i = 0; i < delta.length; i++) {
+            if (delta[i] != -1) {
+                pred[fill[delta[i]]++] = i / k;
+            }
+        }
+
+        // Only dirty blocks are examined in a round: a block can only split again once a
+        // successor of one of its states has moved to another block
+        // One of the first two blocks may be empty, so there are at most nStates + 1 blocks
+        boolean[] dirty = new boolean[nStates + 1];
+        int[] work = new int[nStates + 1];
+        int[] next = new int[nStates + 1];
+        int nWork = 0;
+        for (int i = 0; i < Q.size(); i++) {
+            dirty[i] = true;
+            work[nWork++] = i;
+        }
+        while (nWork > 0) {
+            stats.addRounds(1);
+            int nNext = 0;
+            for (int w = 0; w < nWork; w++) {
+                int i = work[w];
+                dirty[i] = false;
                 List<List<State>> newPartitions = partition(Q.get(i), statePartition);
-                // If the partition was split adds the new partitions
-                if (newPartitions.size() > 1) {
-                    Q.remove(i);
-                    for (List<State> partition : newPartitions) {
-                        Q.add(partition);
+                if (newPartitions.isEmpty()) {
+                    continue;
+                }
+                // partition() moves the states out of the block, the first part keeps its id
+                Q.set(i, newPartitions.get(0));
+                if (newPartitions.size() == 1) {
+                    continue;
+                }
+                stats.addSplits(1);
+                for (int p = 1; p < newPartitions.size(); p++) {
+                    int j = Q.size();
+                    Q.add(newPartitions.get(p));
+                    for (State state : newPartitions.get(p)) {
+                        statePartition[state.id] = j;
                     }
-                    // Update state partition map
-                    for (int j = 0; j < Q.size(); j++) {
-                        for (State state : Q.get(j)) {
-                            statePartition[state.id] = j;
+                }
+                stats.blocks(Q.size());
+                // Blocks still waiting in this round see the move when they are examined
+                for (int p = 1; p < newPartitions.size(); p++) {
+                    for (State state : newPartitions.get(p)) {
+                        for (int e = predStart[state.id]; e < predStart[state.id + 1]; e++) {
+                            int b = statePartition[pred[e]];
+                            if (!dirty[b]) {
+                                dirty[b] = true;
+                                next[nNext++] = b;
+                            }
                         }
                     }
-                    changed = true;
                 }
             }
+            int[] swap = work;
+            work = next;
+            next = swap;
+            nWork = nNext;
         }
+        stats.blocks(Q.size());
+        stats.end(phase);
+
         // Merge states in the same partition
+        phase = stats.begin("merge");
         int n = Arrays.stream(statePartition).max().getAsInt() + 1;
         DFA min = new DFA(n, symbolSet);
+        // The initial state need not be the first state of its partition
+        min.initialState = statePartition[initialState];
         for (int i = 0; i < n; i++) {
-            for (int j = 0; j < adj.size(); j++) {
+            for (int j = 0; j < nStates; j++) {
                 if (statePartition[j] == i) {
-                    if (initialState == j) {
-                        min.initialState = i;
-                    } 
                     if (finalStates[j]) {
                         min.finalStates[i] = true;
                     }
-                    for (String symbol : symbolSet) {
-                        Integer to = adj.get(j).get(symbol);
-                        if (to != null) {
-                            min.adj.get(i).put(symbol, statePartition[to]);
+                    for (int a = 0; a < symbolSet.size(); a++) {
+                        int to = next(j, a);
+                        if (to != -1) {
+                            min.addTransition(i, statePartition[to], a);
                         }
                     }
                     break;
                 }
             }
         }
+        stats.end(phase);
         min.removeUselessStates();
         return min;
     }
@@ -273,10 +471,10 @@ class DFA {
             partition.remove(0);
             for (int j = 0; j < partition.size(); j++) {
                 boolean belongsToPartition = true;
-                for (String symbol : symbolSet) {
-                    Integer to1 = adj.get(partition.get(j).id).get(symbol);
-                    Integer to2 = adj.get(newPartitions.get(i).get(0).id).get(symbol);
-                    if (to1 == null || to2 == null) {
+                for (int a = 0; a < symbolSet.size(); a++) {
+                    int to1 = next(partition.get(j).id, a);
+                    int to2 = next(newPartitions.get(i).get(0).id, a);
+                    if (to1 == -1 || to2 == -1) {
                         if (to1 != to2) {
                             belongsToPartition = false;
                         }
@@ -305,60 +503,282 @@ class DFA {
         return newPartitions;
     }
 
-    // Minimizes the DFA using the Myphill-Nerode algorithm O(n^2)
-    public DFA stdMinimization2(){
-        int[][] table = new int[adj.size()][adj.size()];
-        for (int i = 0; i < adj.size(); i++) {
-            for (int j = 0; j < adj.size(); j++) {
-                table[i][j] = -1;
+    /**
+     * Minimizes the DFA using Moore's signature refinement O(kn) per round, the linear
+     * counterpart of stdMinimization(). The signature of a state is its block and the blocks
+     * of its successors; every round groups the states by signature through an open-addressed
+     * table, which splits all the blocks in one pass. If the DFA is partial, missing
+     * transitions go to an implicit sink state that is dropped from the result.
+     *
+     * @return A minimized version of the DFA.
+     */
+    public DFA signatureMinimization() {
+        return signatureMinimization(MinimizationStats.disabled());
+    }
+
+    /**
+     * Like signatureMinimization(), recording the phases and counters of the run in stats.
+     */
+    public DFA signatureMinimization(MinimizationStats stats) {
+        return withoutUselessStates(stats).signatureMinimizationTrimmed(stats);
+    }
+
+    // The refinement itself, on a DFA without useless states
+    private DFA signatureMinimizationTrimmed(MinimizationStats stats) {
+        MinimizationStats.Phase phase = stats.begin("refine");
+        boolean partial = false;
+        for (int i = 0; i < delta.length && !partial; i++) {
+            partial = delta[i] == -1;
+        }
+        int sink = partial ? nStates : -1;
+        int n = partial ? nStates + 1 : nStates;
+        int[] block = new int[n];
+
+        // Partition the states in final and non-final states
+        boolean hasFinal = false;
+        boolean hasNonFinal = false;
+        for (int i = 0; i < n; i++) {
+            boolean isFinal = i != sink && finalStates[i];
+            block[i] = isFinal ? 1 : 0;
+            hasFinal |= isFinal;
+            hasNonFinal |= !isFinal;
+        }
+        int nBlocks = (hasFinal ? 1 : 0) + (hasNonFinal ? 1 : 0);
+
+        nBlocks = refineSignatures(block, nBlocks, sink, Integer.MAX_VALUE, stats);
+
+        DFA min = mergeBlocks(block, nBlocks, sink);
+        stats.end(phase);
+        return min;
+    }
+
+    /**
+     * Partitions the states by k-equivalence: two states share a block if no word of length at
+     * most k tells them apart. Every Moore round raises k by one, so this stops after the given
+     * number of rounds, or earlier once the partition is stable, in which case it is the full
+     * language equivalence. Unreachable states are partitioned as well.
+     *
+     * @return The block of every state, numbered from 0.
+     */
+    public int[] kEquivalence(int rounds) {
+        if (rounds < 0) {
+            throw new IllegalArgumentException("Negative number of rounds: " + rounds);
+        }
+        boolean partial = false;
+        for (int i = 0; i < delta.length && !partial; i++) {
+            partial = delta[i] == -1;
+        }
+        int sink = partial ? nStates : -1;
+        int n = partial ? nStates + 1 : nStates;
+        int[] block = new int[n];
+        boolean hasFinal = false;
+        boolean hasNonFinal = false;
+        for (int i = 0; i < n; i++) {
+            boolean isFinal = i != sink && finalStates[i];
+            block[i] = isFinal ? 1 : 0;
+            hasFinal |= isFinal;
+            hasNonFinal |= !isFinal;
+        }
+        int nBlocks = (hasFinal ? 1 : 0) + (hasNonFinal ? 1 : 0);
+        refineSignatures(block, nBlocks, sink, rounds, MinimizationStats.disabled());
+
+        // Renumber the blocks in order of first state, the sink is left out
+        int[] id = new int[n + 1];
+        Arrays.fill(id, -1);
+        int[] partition = new int[nStates];
+        int count = 0;
+        for (int i = 0; i < nStates; i++) {
+            if (id[block[i]] == -1) {
+                id[block[i]] = count++;
             }
+            partition[i] = id[block[i]];
         }
+        return partition;
+    }
 
-        for (int i = 0; i < adj.size(); i++) {
-            for (int j = 0; j < adj.size(); j++) {
-                if (i == j) {
-                    continue;
+    /**
+     * Runs Moore rounds on the partition until it is stable or maxRounds rounds have run. Each
+     * round groups the states by signature through an open-addressed table, reading the blocks
+     * of the previous round only.
+     *
+     * @return The number of blocks, whose ids are left in block.
+     */
+    private int refineSignatures(int[] block, int nBlocks, int sink, int maxRounds, MinimizationStats stats) {
+        int n = block.length;
+        int[] current = block;
+        int[] newBlock = new int[n];
+        long[] hash = new long[n];
+        int[] table = new int[Integer.highestOneBit(Math.max(2 * n, 2) - 1) << 1];
+        int mask = table.length - 1;
+        for (int round = 0; round < maxRounds; round++) {
+            // The first state with a signature opens a new block, the others join it
+            Arrays.fill(table, -1);
+            int count = 0;
+            for (int s = 0; s < n; s++) {
+                hash[s] = signatureHash(s, current, sink);
+                int slot = (int) (hash[s] ^ (hash[s] >>> 32)) & mask;
+                while (table[slot] != -1 && !(hash[table[slot]] == hash[s] && sameSignature(s, table[slot], current, sink))) {
+                    slot = (slot + 1) & mask;
                 }
-                if (finalStates[i] != finalStates[j]) {
-                    table[i][j] = 0;
+                if (table[slot] == -1) {
+                    table[slot] = s;
+                    newBlock[s] = count++;
+                } else {
+                    newBlock[s] = newBlock[table[slot]];
+                }
+            }
+            int[] swap = current;
+            current = newBlock;
+            newBlock = swap;
+            stats.addRounds(1);
+            stats.addSplits(count - nBlocks);
+            stats.blocks(count);
+            boolean stable = count == nBlocks;
+            nBlocks = count;
+            if (stable) {
+                break;
+            }
+        }
+        if (current != block) {
+            System.arraycopy(current, 0, block, 0, n);
+        }
+        return nBlocks;
+    }
+
+    /**
+     * Minimizes the DFA using the Myphill-Nerode algorithm O(kn^2).
+     * The distinguishability table keeps one bit per unordered pair of states, and marks are
+     * propagated backward through the inverse transitions, so each pair is marked at most once.
+     * If the DFA is partial, missing transitions go to an implicit sink state.
+     *
+     * @return A minimized version of the DFA.
+     */
+    public DFA stdMinimization2() {
+        return stdMinimization2(MinimizationStats.disabled());
+    }
+
+    /**
+     * Like stdMinimization2(), recording the phases and counters of the run in stats.
+     */
+    public DFA stdMinimization2(MinimizationStats stats) {
+        return withoutUselessStates(stats).stdMinimization2Trimmed(stats);
+    }
+
+    // The refinement itself, on a DFA without useless states
+    private DFA stdMinimization2Trimmed(MinimizationStats stats) {
+        MinimizationStats.Phase phase = stats.begin("inverse");
+        int k = symbolSet.size();
+        boolean partial = false;
+        for (int i = 0; i < delta.length && !partial; i++) {
+            partial = delta[i] == -1;
+        }
+        int sink = partial ? nStates : -1;
+        int size = partial ? nStates + 1 : nStates;
+
+        // Inverse transitions, grouped by (symbol, target)
+        int[] invStart = new int[k * size + 1];
+        for (int s = 0; s < size; s++) {
+            for (int a = 0; a < k; a++) {
+                invStart[a * size + successor(s, a, sink) + 1]++;
+            }
+        }
+        for (int i = 0; i < k * size; i++) {
+            invStart[i + 1] += invStart[i];
+        }
+        int[] inv = new int[size * k];
+        int[] fill = Arrays.copyOf(invStart, k * size);
+        for (int s = 0; s < size; s++) {
+            for (int a = 0; a < k; a++) {
+                inv[fill[a * size + successor(s, a, sink)]++] = s;
+            }
+        }
+
+        stats.end(phase);
+
+        // Upper triangle of the table, pair (i, j) with i < j is bit rowStart[i] + (j - i - 1)
+        phase = stats.begin("refine");
+        long markedPairs = 0;
+        long[] rowStart = new long[size + 1];
+        for (int i = 0; i < size; i++) {
+            rowStart[i + 1] = rowStart[i] + (size - i - 1);
+        }
+        long[] table = new long[(int) ((rowStart[size] + 63) >>> 6)];
+        for (int i = 0; i < size; i++) {
+            for (int j = i + 1; j < size; j++) {
+                if ((i != sink && finalStates[i]) != (j != sink && finalStates[j])) {
+                    long bit = rowStart[i] + (j - i - 1);
+                    table[(int) (bit >>> 6)] |= 1L << bit;
+                    markedPairs++;
                 }
             }
         }
 
-        boolean changed = true;
-        while (changed) {
-            changed = false;
-            for (int i = 0; i < adj.size(); i++) {
-                for (int j = 0; j < adj.size(); j++) {
-                    if (table[i][j] == -1) {
-                        for (String symbol : symbolSet) {
-                            int to1 = adj.get(i).get(symbol);
-                            int to2 = adj.get(j).get(symbol);
-                            if (table[to1][to2] == 0) {
-                                table[i][j] = 0;
-                                changed = true;
-                                break;
+        // Sweep the table once, propagating every marked pair to its predecessor pairs.
+        // Pairs marked ahead of the sweep are found by it, pairs marked behind it go to a stack.
+        long[] stack = new long[16];
+        int top = 0;
+        int row = 0;
+        for (int w = 0; w < table.length; w++) {
+            long bits = table[w];
+            while (bits != 0) {
+                int b = Long.numberOfTrailingZeros(bits);
+                long cursor = ((long) w << 6) + b;
+                while (rowStart[row + 1] <= cursor) {
+                    row++;
+                }
+                int p = row;
+                int q = (int) (row + 1 + (cursor - rowStart[row]));
+                long pair = ((long) p << 32) | q;
+                do {
+                    p = (int) (pair >>> 32);
+                    q = (int) pair;
+                    for (int a = 0; a < k; a++) {
+                        for (int i = invStart[a * size + p]; i < invStart[a * size + p + 1]; i++) {
+                            for (int j = invStart[a * size + q]; j < invStart[a * size + q + 1]; j++) {
+                                int x = Math.min(inv[i], inv[j]);
+                                int y = Math.max(inv[i], inv[j]);
+                                if (x == y) {
+                                    continue;
+                                }
+                                long bit = rowStart[x] + (y - x - 1);
+                                if ((table[(int) (bit >>> 6)] & (1L << bit)) != 0) {
+                                    continue;
+                                }
+                                table[(int) (bit >>> 6)] |= 1L << bit;
+                                markedPairs++;
+                                if (bit < cursor) {
+                                    if (top == stack.length) {
+                                        stack = Arrays.copyOf(stack, 2 * top);
+                                    }
+                                    stack[top++] = ((long) x << 32) | y;
+                                }
                             }
                         }
                     }
-                }
+                    pair = top > 0 ? stack[--top] : -1;
+                } while (pair != -1);
+                bits = table[w] & (-2L << b);
             }
         }
 
+        // A single sweep over the table
+        stats.addRounds(1);
+        stats.addMarkedPairs(markedPairs);
+        stats.end(phase);
+
         // Combine all the unmarked pair (Qi, Qj) and make them a single state in the reduced DFA.
-        List<Integer> newStates = new ArrayList<>();
-        int[] stateMap = new int[adj.size()];
-        for (int i = 0; i < adj.size(); i++) {
+        phase = stats.begin("merge");
+        int[] stateMap = new int[nStates];
+        for (int i = 0; i < nStates; i++) {
             stateMap[i] = -1;
         }
         int n = 0;
-        for (int i = 0; i < adj.size(); i++) {
+        for (int i = 0; i < nStates; i++) {
             if (stateMap[i] == -1) {
-                newStates.add(i);
                 stateMap[i] = n;
-                for (int j = i + 1; j < adj.size(); j++) {
-                    if (table[i][j] == -1) {
-                        newStates.add(j);
+                for (int j = i + 1; j < nStates; j++) {
+                    long bit = rowStart[i] + (j - i - 1);
+                    if (stateMap[j] == -1 && (table[(int) (bit >>> 6)] & (1L << bit)) == 0) {
                         stateMap[j] = n;
                     }
                 }
@@ -366,59 +786,729 @@ class DFA {
             }
         }
 
+        stats.blocks(n);
         DFA min = new DFA(n, symbolSet);
         min.initialState = stateMap[initialState];
-        for (int i = 0; i < adj.size(); i++) {
-            for (String symbol : symbolSet) {
-                int to = adj.get(i).get(symbol);
-                min.addTransition(stateMap[i], stateMap[to], symbol);
+        for (int i = 0; i < nStates; i++) {
+            for (int a = 0; a < k; a++) {
+                int to = next(i, a);
+                if (to != -1) {
+                    min.addTransition(stateMap[i], stateMap[to], a);
+                }
             }
         }
 
-        for (int i = 0; i < adj.size(); i++) {
+        for (int i = 0; i < nStates; i++) {
             if (finalStates[i]) {
                 min.finalStates[stateMap[i]] = true;
             }
         }
+        stats.end(phase);
 
         return min;
 
     }
 
-    private void removeUselessStates() {
-        boolean[] visited = new boolean[adj.size()];
-        List<Integer> reachableStates = new ArrayList<>();
-        reachableStates.add(initialState);
-        visited[initialState] = true;
-        while (reachableStates.size() > 0) {
-            int state = reachableStates.get(0);
-            reachableStates.remove(0);
-            for (String symbol : symbolSet) {
-                Integer to = adj.get(state).get(symbol);
-                if (to != null && !visited[to]) {
-                    visited[to] = true;
-                    reachableStates.add(to);
-                }
-            }
-        }
-        int useless = 0;
-        for (int i = 0; i < adj.size(); i++) {
-            if (!visited[i]) {
-                // Reshift the states and update the transitions
-                for (int j = 0; j < adj.size(); j++) {
-                    for (String symbol : symbolSet) {
-                        Integer to = adj.get(j).get(symbol);
-                        if (to != null && to > i) {
-                            adj.get(j).put(symbol, to - 1);
-                        }
+    /**
+     * Minimizes the DFA using Hopcroft's partition refinement algorithm O(kn log n).
+     * Only states reachable from the initial state are considered. If the DFA is partial,
+     * missing transitions go to an implicit sink state that is dropped from the result.
+     *
+     * @return A minimized version of the DFA.
+     */
+    public DFA hopcroftMinimization() {
+        return hopcroftMinimization(MinimizationStats.disabled());
+    }
+
+    /**
+     * Like hopcroftMinimization(), recording the phases and counters of the run in stats.
+     */
+    public DFA hopcroftMinimization(MinimizationStats stats) {
+        DFA trimmed = withoutUselessStates(stats);
+        MinimizationStats.Phase phase = stats.begin("refine");
+        DFA min = hopcroftMinimization(trimmed, stats);
+        stats.end(phase);
+        return min;
+    }
+
+    /**
+     * Minimizes any automaton view, such as a memory-mapped one, with Hopcroft's algorithm.
+     * Use a MinimizationSession directly to reuse the scratch arrays across many automata.
+     *
+     * @return A minimized version of the automaton.
+     */
+    public static DFA hopcroftMinimization(Automaton dfa) {
+        return new MinimizationSession().minimize(dfa);
+    }
+
+    /**
+     * Like hopcroftMinimization(dfa), adding the splitters, splits and blocks of the run to the
+     * counters of stats.
+     */
+    public static DFA hopcroftMinimization(Automaton dfa, MinimizationStats stats) {
+        DFABuffer out = new DFABuffer();
+        new MinimizationSession().minimize(dfa, out, stats);
+        return out.toDFA();
+    }
+
+    /**
+     * Minimizes the DFA using Valmari and Lehtinen's algorithm O(m log n), where m is the
+     * number of transitions. Works directly on partial DFAs, only the transitions that exist
+     * are scanned.
+     *
+     * @return A minimized version of the DFA.
+     */
+    public DFA valmariMinimization() {
+        return valmariMinimization(MinimizationStats.disabled());
+    }
+
+    /**
+     * Like valmariMinimization(), recording the phases and counters of the run in stats.
+     */
+    public DFA valmariMinimization(MinimizationStats stats) {
+        return withoutUselessStates(stats).valmariMinimizationTrimmed(stats);
+    }
+
+    // The refinement itself, on a DFA without useless states
+    private DFA valmariMinimizationTrimmed(MinimizationStats stats) {
+        MinimizationStats.Phase phase = stats.begin("refine");
+        int k = symbolSet.size();
+        int n = nStates;
+
+        // Collect the transitions
+        int m = 0;
+        for (int to : delta) {
+            if (to != -1) {
+                m++;
+            }
+        }
+        int[] tails = new int[m];
+        int[] heads = new int[m];
+        int[] labels = new int[m];
+        m = 0;
+        for (int q = 0; q < n; q++) {
+            for (int a = 0; a < k; a++) {
+                int to = next(q, a);
+                if (to != -1) {
+                    tails[m] = q;
+                    heads[m] = to;
+                    labels[m++] = a;
+                }
+            }
+        }
+
+        // Blocks: split the states in final and non-final states
+        RefinablePartition blocks = new RefinablePartition(n);
+        for (int q = 0; q < n; q++) {
+            if (finalStates[q]) {
+                blocks.mark(q);
+            }
+        }
+        blocks.split();
+
+        stats.addSplitters(refine(blocks, n, k, m, tails, heads, labels));
+        stats.addSplits(blocks.z - 1);
+        stats.blocks(blocks.z);
+
+        // Merge states in the same block
+        DFA min = new DFA(blocks.z, symbolSet);
+        min.initialState = blocks.set[initialState];
+        for (int q = 0; q < n; q++) {
+            if (finalStates[q]) {
+                min.finalStates[blocks.set[q]] = true;
+            }
+        }
+        for (int t = 0; t < m; t++) {
+            int q = tails[t];
+            if (blocks.loc[q] == blocks.first[blocks.set[q]]) {
+                min.addTransition(blocks.set[q], blocks.set[heads[t]], labels[t]);
+            }
+        }
+        stats.end(phase);
+        return min;
+    }
+
+    /**
+     * Refines blocks until no block can be split by the transitions, so that two states stay
+     * in the same block only if their transitions on every label lead to the same blocks.
+     * Transitions t go from tails[t] to heads[t] on labels[t]; missing transitions are allowed.
+     *
+     * @param blocks Initial partition of the n states, refined in place.
+     * @return The number of cords used as splitters.
+     */
+    static int refine(RefinablePartition blocks, int n, int k, int m, int[] tails, int[] heads, int[] labels) {
+        int[] labelCount = new int[k + 1];
+        for (int t = 0; t < m; t++) {
+            labelCount[labels[t] + 1]++;
+        }
+
+        // Cords: group the transitions by label
+        RefinablePartition cords = new RefinablePartition(m);
+        for (int a = 0; a < k; a++) {
+            labelCount[a + 1] += labelCount[a];
+        }
+        cords.z = 0;
+        for (int a = 0; a < k; a++) {
+            if (labelCount[a + 1] > labelCount[a]) {
+                cords.first[cords.z] = labelCount[a];
+                cords.end[cords.z++] = labelCount[a + 1];
+            }
+        }
+        int[] pos = Arrays.copyOf(labelCount, k);
+        for (int t = 0; t < m; t++) {
+            int i = pos[labels[t]]++;
+            cords.elems[i] = t;
+            cords.loc[t] = i;
+        }
+        for (int c = 0; c < cords.z; c++) {
+            for (int i = cords.first[c]; i < cords.end[c]; i++) {
+                cords.set[cords.elems[i]] = c;
+            }
+        }
+
+        // Incoming transitions of each state
+        int[] inStart = new int[n + 1];
+        for (int t = 0; t < m; t++) {
+            inStart[heads[t] + 1]++;
+        }
+        for (int q = 0; q < n; q++) {
+            inStart[q + 1] += inStart[q];
+        }
+        int[] in = new int[m];
+        int[] fill = Arrays.copyOf(inStart, n);
+        for (int t = 0; t < m; t++) {
+            in[fill[heads[t]]++] = t;
+        }
+
+        // Split blocks by cords and cords by blocks until both are stable
+        int b = 1;
+        int c = 0;
+        while (c < cords.z) {
+            for (int i = cords.first[c]; i < cords.end[c]; i++) {
+                blocks.mark(tails[cords.elems[i]]);
+            }
+            blocks.split();
+            c++;
+            while (b < blocks.z) {
+                for (int i = blocks.first[b]; i < blocks.end[b]; i++) {
+                    int q = blocks.elems[i];
+                    for (int j = inStart[q]; j < inStart[q + 1]; j++) {
+                        cords.mark(in[j]);
                     }
                 }
-                useless++;
+                cords.split();
+                b++;
+            }
+        }
+        return c;
+    }
+
+    /**
+     * Minimizes the DFA using Moore's signature refinement O(kn) per round. In every round
+     * the signature of each state (its block and the blocks of its successors) is computed in
+     * parallel, and states with equal signatures are grouped through a concurrent hash table.
+     * If the DFA is partial, missing transitions go to an implicit sink state that is dropped
+     * from the result.
+     *
+     * @param nThreads Number of worker threads.
+     * @return A minimized version of the DFA.
+     */
+    public DFA parallelMinimization(int nThreads) {
+        return parallelMinimization(nThreads, MinimizationStats.disabled());
+    }
+
+    /**
+     * Like parallelMinimization(nThreads), recording the phases and counters of the run in stats.
+     */
+    public DFA parallelMinimization(int nThreads, MinimizationStats stats) {
+        return withoutUselessStates(stats).parallelMinimizationTrimmed(nThreads, stats);
+    }
+
+    // The refinement itself, on a DFA without useless states
+    private DFA parallelMinimizationTrimmed(int nThreads, MinimizationStats stats) {
+        MinimizationStats.Phase phase = stats.begin("refine");
+        boolean partial = false;
+        for (int i = 0; i < delta.length && !partial; i++) {
+            partial = delta[i] == -1;
+        }
+        int sink = partial ? nStates : -1;
+        int n = partial ? nStates + 1 : nStates;
+        int[] block = new int[n];
+        int[] newBlock = new int[n];
+        long[] hash = new long[n];
+        int[] rep = new int[n];
+        int[] blockId = new int[n];
+        AtomicIntegerArray table = new AtomicIntegerArray(Integer.highestOneBit(Math.max(2 * n, 2) - 1) << 1);
+        int mask = table.length() - 1;
+
+        // Partition the states in final and non-final states
+        boolean hasFinal = false;
+        boolean hasNonFinal = false;
+        for (int i = 0; i < n; i++) {
+            boolean isFinal = i != sink && finalStates[i];
+            block[i] = isFinal ? 1 : 0;
+            hasFinal |= isFinal;
+            hasNonFinal |= !isFinal;
+        }
+        int nBlocks = (hasFinal ? 1 : 0) + (hasNonFinal ? 1 : 0);
+
+        ForkJoinPool pool = new ForkJoinPool(nThreads);
+        try {
+            while (true) {
+                final int[] cur = block;
+                final int[] out = newBlock;
+                parallelFor(pool, n, s -> hash[s] = signatureHash(s, cur, sink));
+                parallelFor(pool, table.length(), i -> table.set(i, -1));
+                parallelFor(pool, n, s -> rep[s] = findRepresentative(table, mask, s, hash, cur, sink));
+
+                // Number the representatives, every other state joins the block of its representative
+                parallelFor(pool, n, s -> blockId[s] = rep[s] == s ? 1 : 0);
+                pool.invoke(ForkJoinTask.adapt(() -> Arrays.parallelPrefix(blockId, Integer::sum)));
+                parallelFor(pool, n, s -> out[s] = blockId[rep[s]] - 1);
+
+                newBlock = block;
+                block = out;
+                int count = n == 0 ? 0 : blockId[n - 1];
+                stats.addRounds(1);
+                stats.addSplits(count - nBlocks);
+                stats.blocks(count);
+                if (count == nBlocks) {
+                    break;
+                }
+                nBlocks = count;
+            }
+        } finally {
+            pool.shutdown();
+        }
+
+        DFA min = mergeBlocks(block, nBlocks, sink);
+        stats.end(phase);
+        return min;
+    }
+
+    /**
+     * Merges the states in the same block, keeping the blocks reachable from the initial one
+     * and dropping the block of the sink.
+     */
+    private DFA mergeBlocks(int[] block, int nBlocks, int sink) {
+        int[] repOf = new int[nBlocks];
+        for (int s = 0; s < block.length; s++) {
+            repOf[block[s]] = s;
+        }
+        int sinkBlock = sink != -1 ? block[sink] : -1;
+        int[] newId = new int[nBlocks];
+        Arrays.fill(newId, -1);
+        int[] queue = new int[nBlocks];
+        int m = 0;
+        newId[block[initialState]] = m;
+        queue[m++] = block[initialState];
+        for (int head = 0; head < m; head++) {
+            for (int a = 0; a < symbolSet.size(); a++) {
+                int to = successor(repOf[queue[head]], a, sink);
+                if (to != -1 && block[to] != sinkBlock && newId[block[to]] == -1) {
+                    newId[block[to]] = m;
+                    queue[m++] = block[to];
+                }
+            }
+        }
+        DFA min = new DFA(m, symbolSet);
+        min.initialState = 0;
+        for (int i = 0; i < m; i++) {
+            int s = repOf[queue[i]];
+            min.finalStates[i] = s != sink && finalStates[s];
+            for (int a = 0; a < symbolSet.size(); a++) {
+                int to = successor(s, a, sink);
+                if (to != -1 && block[to] != sinkBlock) {
+                    min.addTransition(i, newId[block[to]], a);
+                }
+            }
+        }
+        return min;
+    }
+
+    private static void parallelFor(ForkJoinPool pool, int n, IntConsumer body) {
+        pool.invoke(ForkJoinTask.adapt(() -> IntStream.range(0, n).parallel().forEach(body)));
+    }
+
+    // Successor on symbol a, where the sink state (if any) receives the missing transitions
+    private int successor(int s, int a, int sink) {
+        if (s == sink) {
+            return sink;
+        }
+        int to = next(s, a);
+        return to == -1 ? sink : to;
+    }
+
+    private long signatureHash(int s, int[] block, int sink) {
+        long h = block[s];
+        for (int a = 0; a < symbolSet.size(); a++) {
+            h = (h ^ block[successor(s, a, sink)]) * 0x9E3779B97F4A7C15L;
+            h ^= h >>> 29;
+        }
+        return h;
+    }
+
+    private boolean sameSignature(int s, int t, int[] block, int sink) {
+        if (block[s] != block[t]) {
+            return false;
+        }
+        for (int a = 0; a < symbolSet.size(); a++) {
+            if (block[successor(s, a, sink)] != block[successor(t, a, sink)]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Returns the first state inserted in the table with the same signature as s
+    private int findRepresentative(AtomicIntegerArray table, int mask, int s, long[] hash, int[] block, int sink) {
+        int slot = (int) (hash[s] ^ (hash[s] >>> 32)) & mask;
+        while (true) {
+            int t = table.get(slot);
+            if (t == -1) {
+                if (table.compareAndSet(slot, -1, s)) {
+                    return s;
+                }
+                t = table.get(slot);
+            }
+            if (hash[t] == hash[s] && sameSignature(s, t, block, sink)) {
+                return t;
+            }
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    /**
+     * @return For each state, whether it is reachable from the initial state.
+     */
+    public boolean[] reachableStates() {
+        int k = symbolSet.size();
+        boolean[] reachable = new boolean[nStates];
+        int[] queue = new int[nStates];
+        int tail = 0;
+        reachable[initialState] = true;
+        queue[tail++] = initialState;
+        for (int head = 0; head < tail; head++) {
+            for (int i = queue[head] * k; i < (queue[head] + 1) * k; i++) {
+                int to = delta[i];
+                if (to != -1 && !reachable[to]) {
+                    reachable[to] = true;
+                    queue[tail++] = to;
+                }
+            }
+        }
+        return reachable;
+    }
+
+    /**
+     * @return For each state, whether a final state can be reached from it.
+     */
+    public boolean[] liveStates() {
+        // Reverse edges, grouped by target
+        int[] predStart = new int[nStates + 1];
+        for (int to : delta) {
+            if (to != -1) {
+                predStart[to + 1]++;
+            }
+        }
+        for (int s = 0; s < nStates; s++) {
+            predStart[s + 1] += predStart[s];
+        }
+        int k = symbolSet.size();
+        int[] pred = new int[predStart[nStates]];
+        int[] fill = Arrays.copyOf(predStart, nStates);
+        for (int i = 0; i < delta.length; i++) {
+            if (delta[i] != -1) {
+                pred[fill[delta[i]]++] = i / k;
+            }
+        }
+
+        boolean[] live = new boolean[nStates];
+        int[] queue = new int[nStates];
+        int tail = 0;
+        for (int s = 0; s < nStates; s++) {
+            if (finalStates[s]) {
+                live[s] = true;
+                queue[tail++] = s;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            int q = queue[head];
+            for (int j = predStart[q]; j < predStart[q + 1]; j++) {
+                if (!live[pred[j]]) {
+                    live[pred[j]] = true;
+                    queue[tail++] = pred[j];
+                }
             }
         }
-        for (int i = 0; i < useless; i++) {
-            adj.removeLast();
+        return live;
+    }
+
+    // Reachable states that can also reach a final state
+    private boolean[] usefulStates() {
+        boolean[] useful = reachableStates();
+        boolean[] live = liveStates();
+        for (int s = 0; s < nStates; s++) {
+            useful[s] &= live[s];
         }
+        return useful;
+    }
+
+    /**
+     * Removes the states that are unreachable from the initial state, or from which no final
+     * state can be reached, together with their transitions O(kn).
+     */
+    public void removeUselessStates() {
+        compact(usefulStates());
+    }
+
+    public void removeUnreachableStates() {
+        compact(reachableStates());
+    }
+
+    /**
+     * @return This DFA if every state is useful, otherwise a copy without the useless states.
+     */
+    public DFA withoutUselessStates() {
+        return withoutUselessStates(MinimizationStats.disabled());
+    }
+
+    private DFA withoutUselessStates(MinimizationStats stats) {
+        MinimizationStats.Phase phase = stats.begin("prune");
+        boolean[] useful = usefulStates();
+        DFA result = this;
+        if (useful[initialState] || nStates != 1 || outDegree(0) != 0) {
+            for (int s = 0; s < nStates; s++) {
+                if (!useful[s]) {
+                    result = clone();
+                    result.compact(useful);
+                    break;
+                }
+            }
+        }
+        stats.end(phase);
+        return result;
+    }
+
+    // Keeps the given states, renumbering them in order and moving their rows in place
+    private void compact(boolean[] keep) {
+        int k = symbolSet.size();
+        if (!keep[initialState]) {
+            // The language is empty
+            nStates = 1;
+            initialState = 0;
+            finalStates = new boolean[1];
+            delta = new int[k];
+            Arrays.fill(delta, -1);
+            return;
+        }
+        int[] remap = new int[nStates];
+        int n = 0;
+        for (int s = 0; s < nStates; s++) {
+            remap[s] = keep[s] ? n++ : -1;
+        }
+        for (int s = 0; s < nStates; s++) {
+            if (keep[s]) {
+                for (int a = 0; a < k; a++) {
+                    int to = delta[s * k + a];
+                    delta[remap[s] * k + a] = to == -1 ? -1 : remap[to];
+                }
+                finalStates[remap[s]] = finalStates[s];
+            }
+        }
+        initialState = remap[initialState];
+        nStates = n;
+        delta = Arrays.copyOf(delta, n * k);
+        finalStates = Arrays.copyOf(finalStates, n);
+    }
+
+    /**
+     * Renumbers the states in breadth-first order from the initial state, following the
+     * symbols in sorted order. Unreachable states are dropped. Isomorphic DFAs have equal
+     * canonical forms, and so do all minimizations of equivalent DFAs.
+     *
+     * @return The canonical form of the DFA, with a sorted symbolSet.
+     */
+    public DFA canonicalForm() {
+        int k = symbolSet.size();
+        // Symbols in sorted order, so the order in which they were first read does not matter
+        Integer[] sorted = new Integer[k];
+        for (int a = 0; a < k; a++) {
+            sorted[a] = a;
+        }
+        Arrays.sort(sorted, (a, b) -> symbolSet.get(a).compareTo(symbolSet.get(b)));
+        List<String> symbols = new ArrayList<>(k);
+        for (int a = 0; a < k; a++) {
+            symbols.add(symbolSet.get(sorted[a]));
+        }
+
+        int[] order = new int[nStates];
+        Arrays.fill(order, -1);
+        int[] queue = new int[nStates];
+        int count = 0;
+        int start = initialState == -1 ? 0 : initialState;
+        if (nStates > 0) {
+            order[start] = 0;
+            queue[count++] = start;
+        }
+        for (int i = 0; i < count; i++) {
+            for (int a = 0; a < k; a++) {
+                int to = next(queue[i], sorted[a]);
+                if (to != -1 && order[to] == -1) {
+                    order[to] = count;
+                    queue[count++] = to;
+                }
+            }
+        }
+        DFA canonical = new DFA(count, symbols);
+        canonical.initialState = 0;
+        for (int i = 0; i < count; i++) {
+            canonical.finalStates[i] = finalStates[queue[i]];
+            for (int a = 0; a < k; a++) {
+                int to = next(queue[i], sorted[a]);
+                canonical.delta[i * k + a] = to == -1 ? -1 : order[to];
+            }
+        }
+        return canonical;
+    }
+
+    /**
+     * @return A 128-bit hash of the canonical form, equal for isomorphic DFAs.
+     */
+    public Fingerprint fingerprint() {
+        return Fingerprint.of(this);
+    }
+
+    /**
+     * @return True if the reachable parts of both DFAs are equal up to a renumbering of the
+     * states. For minimized DFAs this means they accept the same language.
+     */
+    public boolean isomorphic(DFA other) {
+        DFA a = canonicalForm();
+        DFA b = other.canonicalForm();
+        return a.nStates == b.nStates && a.symbolSet.equals(b.symbolSet)
+                && Arrays.equals(a.finalStates, b.finalStates) && Arrays.equals(a.delta, b.delta);
+    }
+
+    /**
+     * Checks language equivalence with Hopcroft and Karp's algorithm O(nk α(n)): pairs of
+     * states that must accept the same language are merged in a union-find, and a pair that
+     * disagrees on finality gives a counterexample. Missing transitions go to an implicit
+     * sink in each DFA, as does a symbol that only the other DFA knows.
+     *
+     * @return A word accepted by exactly one of the DFAs, or null if they are equivalent.
+     */
+    public List<String> counterexample(DFA other) {
+        return counterexample(this, other);
+    }
+
+    /**
+     * Like a.counterexample(b), for any automaton views such as memory-mapped ones.
+     */
+    public static List<String> counterexample(Automaton a, Automaton b) {
+        List<String> symbols = new ArrayList<>(a.symbolSet());
+        Map<String, Integer> indexA = symbolIndex(a.symbolSet());
+        Map<String, Integer> indexB = symbolIndex(b.symbolSet());
+        for (String symbol : b.symbolSet()) {
+            if (!indexA.containsKey(symbol)) {
+                symbols.add(symbol);
+            }
+        }
+        int k = symbols.size();
+        int[] mine = new int[k];
+        int[] theirs = new int[k];
+        for (int x = 0; x < k; x++) {
+            mine[x] = indexA.getOrDefault(symbols.get(x), -1);
+            theirs[x] = indexB.getOrDefault(symbols.get(x), -1);
+        }
+
+        // States of a, its sink, then the states of b and its sink
+        int nA = a.nStates();
+        int nB = b.nStates();
+        int offset = nA + 1;
+        int total = offset + nB + 1;
+        int[] parent = new int[total];
+        for (int i = 0; i < total; i++) {
+            parent[i] = i;
+        }
+        // Every pair but the first comes from a union, so there are fewer pairs than states
+        int[] left = new int[total];
+        int[] right = new int[total];
+        int[] from = new int[total];
+        int[] via = new int[total];
+        left[0] = nA == 0 ? nA : a.initialState();
+        right[0] = offset + (nB == 0 ? nB : b.initialState());
+        from[0] = -1;
+        parent[right[0]] = left[0];
+        int count = 1;
+        for (int i = 0; i < count; i++) {
+            int p = left[i];
+            int q = right[i] - offset;
+            boolean pFinal = p < nA && a.isFinal(p);
+            boolean qFinal = q < nB && b.isFinal(q);
+            if (pFinal != qFinal) {
+                LinkedList<String> word = new LinkedList<>();
+                for (int j = i; from[j] != -1; j = from[j]) {
+                    word.addFirst(symbols.get(via[j]));
+                }
+                return word;
+            }
+            for (int x = 0; x < k; x++) {
+                int p2 = p == nA || mine[x] == -1 ? -1 : a.next(p, mine[x]);
+                int q2 = q == nB || theirs[x] == -1 ? -1 : b.next(q, theirs[x]);
+                p2 = p2 == -1 ? nA : p2;
+                q2 = offset + (q2 == -1 ? nB : q2);
+                int rp = find(parent, p2);
+                int rq = find(parent, q2);
+                if (rp != rq) {
+                    parent[rq] = rp;
+                    left[count] = p2;
+                    right[count] = q2;
+                    from[count] = i;
+                    via[count++] = x;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Map<String, Integer> symbolIndex(List<String> symbols) {
+        Map<String, Integer> index = new HashMap<>();
+        for (int x = 0; x < symbols.size(); x++) {
+            index.putIfAbsent(symbols.get(x), x);
+        }
+        return index;
+    }
+
+    public boolean equivalent(DFA other) {
+        return counterexample(other) == null;
+    }
+
+    /**
+     * The operations below explore only the reachable pairs of the product, see ProductDFA.
+     *
+     * @return The minimized DFA of the words accepted by both DFAs.
+     */
+    public DFA intersection(DFA other) {
+        return ProductDFA.minimize(this, other, ProductDFA.Operation.INTERSECTION);
+    }
+
+    public DFA union(DFA other) {
+        return ProductDFA.minimize(this, other, ProductDFA.Operation.UNION);
+    }
+
+    // Words accepted by this DFA and not by the other
+    public DFA difference(DFA other) {
+        return ProductDFA.minimize(this, other, ProductDFA.Operation.DIFFERENCE);
+    }
+
+    // Root of the set of x, halving the path on the way
+    static int find(int[] parent, int x) {
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
+        }
+        return x;
     }
 
     private static final String WATERMARK = "<!-- Created by https://github.com/ravixr/dfa-minimization -->\n";
@@ -427,49 +1517,82 @@ class DFA {
      * @return A string containing a JFLAP 7.0 XML compatible description of this automaton.
      */
     public String toJFLAPXML() {
-        String xml = "";
-        xml += "<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n";
-        xml += WATERMARK;
-        xml += "<structure>&#13;\n";
-        xml += "\t<type>fa</type>&#13;\n";
-        xml += "\t<automaton>&#13;\n";
+        StringWriter writer = new StringWriter();
+        try {
+            writeJFLAPXML(writer);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Writes a JFLAP 7.0 XML compatible description of this automaton to out, one element at a time.
+     */
+    public void writeJFLAPXML(Writer out) throws IOException {
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\" standalone=\"no\"?>\n");
+        out.write(WATERMARK);
+        out.write("<structure>&#13;\n");
+        out.write("\t<type>fa</type>&#13;\n");
+        out.write("\t<automaton>&#13;\n");
         // States
-        for (int i = 0; i < adj.size(); i++) {
-            xml += "\t\t<state id=\"" + i + "\" name=\"q" + i + "\">&#13;\n";
-            xml += "\t\t\t<x>0</x>&#13;\n";
-            xml += "\t\t\t<y>0</y>&#13;\n";
+        for (int i = 0; i < nStates; i++) {
+            String id = Integer.toString(i);
+            out.write("\t\t<state id=\"");
+            out.write(id);
+            out.write("\" name=\"q");
+            out.write(id);
+            out.write("\">&#13;\n");
+            out.write("\t\t\t<x>0</x>&#13;\n");
+            out.write("\t\t\t<y>0</y>&#13;\n");
             if (i == initialState) {
-                xml += "\t\t\t<initial/>&#13;\n";
+                out.write("\t\t\t<initial/>&#13;\n");
             }
             if (finalStates[i]) {
-                xml += "\t\t\t<final/>&#13;\n";
+                out.write("\t\t\t<final/>&#13;\n");
             }
-            xml += "\t\t</state>&#13;\n";
+            out.write("\t\t</state>&#13;\n");
         }
         // Transitions
-        for (int i = 0; i < adj.size(); i++) {
-            
-            for (String symbol : adj.get(i).keySet()) {
-                xml += "\t\t<transition>&#13;\n";
-                xml += "\t\t\t<from>" + i + "</from>&#13;\n";
-                xml += "\t\t\t<to>" + adj.get(i).get(symbol) + "</to>&#13;\n";
-                xml += "\t\t\t<read>" + symbol + "</read>&#13;\n";
-                xml += "\t\t</transition>&#13;\n";
+        for (int i = 0; i < nStates; i++) {
+            String from = Integer.toString(i);
+            for (int a = 0; a < symbolSet.size(); a++) {
+                if (next(i, a) == -1) {
+                    continue;
+                }
+                out.write("\t\t<transition>&#13;\n");
+                out.write("\t\t\t<from>");
+                out.write(from);
+                out.write("</from>&#13;\n");
+                out.write("\t\t\t<to>");
+                out.write(Integer.toString(next(i, a)));
+                out.write("</to>&#13;\n");
+                out.write("\t\t\t<read>");
+                out.write(symbolSet.get(a));
+                out.write("</read>&#13;\n");
+                out.write("\t\t</transition>&#13;\n");
             }
-            
         }
-        xml += "\t</automaton>&#13;\n";
-        xml += "</structure>\n";
-        return xml;
+        out.write("\t</automaton>&#13;\n");
+        out.write("</structure>\n");
+    }
+
+    public void writeJFLAPXML(Path path) throws IOException {
+        try (Writer writer = new BufferedWriter(
+                new OutputStreamWriter(Files.newOutputStream(path), StandardCharsets.UTF_8), 1 << 16)) {
+            writeJFLAPXML(writer);
+        }
+    }
+
+    // Resolves a file name inside the tests directory of the project
+    public static Path testsPath(String filePath) {
+        // Pega o caminho geral do programa
+        return Paths.get(Paths.get("").toAbsolutePath().toString().split("/src")[0] + ("/tests/" + filePath));
     }
 
     public void SaveJFLAPXML(String filePath) {
         try {
-            filePath = Paths.get("").toAbsolutePath().toString().split("/src")[0] + ("/tests/" + filePath);
-            File file = new File(filePath);
-            java.io.FileWriter writer = new java.io.FileWriter(file);
-            writer.write(toJFLAPXML());
-            writer.close();
+            writeJFLAPXML(testsPath(filePath));
         } catch (Exception e) {
             e.printStackTrace();
         }
@@ -477,149 +1600,42 @@ class DFA {
 
     public static DFA FromJFLAPXML(String filePath) {
         DFA new_dfa = null;
-        int nStates = 0;
-        int initialState = 0;
-        List<State> states = new ArrayList<>();
-        List<Transition> transitions = new ArrayList<>();
-        List<Integer> finalStatesList = new ArrayList<>();
-        boolean[] finalStates = null;
-        List<HashMap<Character, Integer>> adj = new ArrayList<>();
-        List<String> symbolSet = new ArrayList<>();
-        HashMap<Integer, Integer> stateMap = new HashMap<>();
-        for (int i = 0; i < nStates; i++) {
-            adj.add(new HashMap<>());
-        }
         try {
-            
-
-            
-
-            // Pega o caminho geral do programa
-            filePath = Paths.get("").toAbsolutePath().toString().split("/src")[0] + ("/tests/" + filePath);
-            XMLInputFactory factory = XMLInputFactory.newInstance();
-            InputStream inputStream = new FileInputStream(new File(filePath));
-            XMLStreamReader reader = factory.createXMLStreamReader(inputStream);
-            String lastElement = "";
-            Transition currentTransition = null;
-            
-            while (reader.hasNext()) {
-                int event = reader.next();
-                
-                switch (event) {
-                    case XMLStreamConstants.START_ELEMENT:
-                        switch (reader.getLocalName()) {
-                            case "state":
-                                int id = Integer.parseInt(reader.getAttributeValue(null, "id"));
-                                stateMap.put(id, nStates);
-                                String name = reader.getAttributeValue(null, "name");
-                                states.add(new State(nStates, name));
-                                lastElement = "state";
-                                nStates++;
-                                break;
-                            case "transition":
-                                currentTransition = new Transition();
-                                lastElement = "transition";
-                                break;
-                            case "to":
-                                lastElement = "to";
-                                break;
-                            case "from":
-                                lastElement = "from";
-                                break;
-                            case "read":
-                                lastElement = "read";
-                                break;
-                            default:
-                                break;
-                        }
-                        break;
-                    case XMLStreamConstants.END_ELEMENT:
-                        switch (reader.getLocalName()) {
-                            case "transition":
-                                transitions.add(currentTransition);
-                                break;
-                            case "initial":
-                                initialState = states.get(states.size() - 1).id;
-                                break;
-                            case "final":
-                                finalStatesList.add(states.get(states.size() - 1).id);
-                                break;
-                        }
-                        break;
-                    case XMLStreamConstants.CHARACTERS:
-                        if (!(lastElement.equals("read") || lastElement.equals("to") || lastElement.equals("from")) || reader.isWhiteSpace()){
-                            break;
-                        }
-                        String text = reader.getText().trim();
-                        switch (lastElement) {
-                            case "to":
-                                currentTransition.to = stateMap.get(Integer.parseInt(text));
-                                break;
-                            case "from":
-                                currentTransition.from =  stateMap.get(Integer.parseInt(text));
-                                break;
-                            case "read":
-                                currentTransition.symbol = text;
-                                if (!symbolSet.contains(text)) {
-                                    symbolSet.add(text);
-                                }
-                                break;
-
-                            default:
-                                break;
-                        }
-                        break;
-                    default:
-                        break;
-                }
-            }
-
-            reader.close();
-        } catch (XMLStreamException e) {
-            e.printStackTrace();
+            new_dfa = JFLAPLoader.load(testsPath(filePath));
         } catch (Exception e) {
             e.printStackTrace();
         }
-    
-        finalStates = new boolean[nStates];
-        for (int i = 0; i < finalStatesList.size(); i++) {
-            finalStates[finalStatesList.get(i)] = true;
-        }
-
-        new_dfa = new DFA(nStates, symbolSet, initialState, finalStates);
-        for (Transition t : transitions) {
-            new_dfa.addTransition(t.from, t.to, t.symbol);
-        }
-
         return new_dfa;
     }
 
     @Override
     public String toString() {
-        String str = "\n";
-        str += "Number of States: " + adj.size() + "\n";
-        str += "Initial state: q" + initialState + "\n";
-        str += "Final states: ";
+        StringBuilder str = new StringBuilder("\n");
+        str.append("Number of States: ").append(nStates).append('\n');
+        str.append("Initial state: q").append(initialState).append('\n');
+        str.append("Final states: ");
         for (int i = 0; i < finalStates.length; i++) {
             if (finalStates[i]) {
-                str += "q" + i + " ";
+                str.append('q').append(i).append(' ');
             }
         }
-        str += "\n";
-        for (int i = 0; i < adj.size(); i++) {
-            for (String symbol : adj.get(i).keySet()) {
-                str += "q" + i + " -> q" + adj.get(i).get(symbol) + " on " + symbol + "\n";
+        str.append('\n');
+        for (int i = 0; i < nStates; i++) {
+            for (int a = 0; a < symbolSet.size(); a++) {
+                if (next(i, a) != -1) {
+                    str.append('q').append(i).append(" -> q").append(next(i, a)).append(" on ").append(symbolSet.get(a)).append('\n');
+                }
             }
         }
 
-        return str;
+        return str.toString();
     }
 
     public static void foo() {
         DFA gen = DFA.generateDFA(10, Arrays.asList("a", "b"));
-        System.out.println("Original Size: " + gen.adj.size());
+        System.out.println("Original Size: " + gen.nStates);
         DFA min = gen.stdMinimization();
-        System.out.println("Minimized Size: " + min.adj.size());
+        System.out.println("Minimized Size: " + min.nStates);
         String filename = "gen";
         gen.SaveJFLAPXML(filename + ".jff");
         min.SaveJFLAPXML(filename + "_min" + ".jff");
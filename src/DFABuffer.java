@@ -0,0 +1,64 @@
+/**
+ * @authors https://github.com/ravixr/dfa-minimization
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+// DFA whose arrays are kept and grown as needed when it is written again
+class DFABuffer implements Automaton {
+    public int nStates;
+    public int initialState = -1;
+    // Only the first nStates * k entries of delta and nStates entries of finalStates are valid
+    public int[] delta = new int[0];
+    public boolean[] finalStates = new boolean[0];
+    private List<String> symbolSet = List.of();
+
+    // Sets the size, leaving the transitions and final states to be written
+    void reset(int nStates, List<String> symbolSet) {
+        int length = nStates * symbolSet.size();
+        if (delta.length < length) {
+            delta = new int[Math.max(length, 2 * delta.length)];
+        }
+        if (finalStates.length < nStates) {
+            finalStates = new boolean[Math.max(nStates, 2 * finalStates.length)];
+        }
+        this.nStates = nStates;
+        this.symbolSet = symbolSet;
+    }
+
+    /**
+     * @return A copy that no longer shares anything with the buffer.
+     */
+    public DFA toDFA() {
+        int k = symbolSet.size();
+        return new DFA(nStates, new ArrayList<>(symbolSet), initialState, Arrays.copyOf(finalStates, nStates),
+                Arrays.copyOf(delta, nStates * k));
+    }
+
+    @Override
+    public int nStates() {
+        return nStates;
+    }
+
+    @Override
+    public List<String> symbolSet() {
+        return symbolSet;
+    }
+
+    @Override
+    public int initialState() {
+        return initialState;
+    }
+
+    @Override
+    public boolean isFinal(int state) {
+        return finalStates[state];
+    }
+
+    @Override
+    public int next(int state, int symbol) {
+        return delta[state * symbolSet.size() + symbol];
+    }
+}
@@ -0,0 +1,327 @@
+/**
+ * @authors https://github.com/ravixr/dfa-minimization
+ */
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.LongConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Runs a DFA over bytes. Every symbol must be a single character, read as one ISO-8859-1 byte;
+ * bytes outside the alphabet lead to a dead state. Bytes whose transitions are identical share
+ * a class, and the transition table is a flat int[] indexed by state * nClasses + class, with
+ * states stored premultiplied by nClasses so a step is a single load.
+ *
+ * Build it from a minimized DFA: the parallel scans simulate every state at chunk boundaries.
+ */
+class DFAMatcher {
+    // Size of the windows files are mapped in
+    private static final long WINDOW = 1L << 30;
+    private static final int MIN_CHUNK = 1 << 20;
+
+    private final int nStates;
+    private final int nClasses;
+    private final int[] byteClass = new int[256];
+    // Premultiplied next state, the dead state is the last row
+    private final int[] next;
+    private final boolean[] accepting;
+    private final int initial;
+    private final int dead;
+
+    public DFAMatcher(DFA dfa) {
+        int k = dfa.symbolSet.size();
+        nStates = dfa.nStates + 1;
+
+        // Class 0 holds the bytes outside the alphabet, symbols with equal columns share a class
+        List<int[]> columns = new ArrayList<>();
+        columns.add(null);
+        HashMap<Integer, List<Integer>> byHash = new HashMap<>();
+        for (int a = 0; a < k; a++) {
+            String symbol = dfa.symbolSet.get(a);
+            if (symbol.length() != 1 || symbol.charAt(0) > 0xFF) {
+                throw new IllegalArgumentException("Symbol is not a single byte: " + symbol);
+            }
+            int[] column = new int[dfa.nStates];
+            for (int s = 0; s < dfa.nStates; s++) {
+                column[s] = dfa.next(s, a);
+            }
+            int hash = Arrays.hashCode(column);
+            int cls = -1;
+            for (int c : byHash.getOrDefault(hash, List.of())) {
+                if (Arrays.equals(columns.get(c), column)) {
+                    cls = c;
+                }
+            }
+            if (cls == -1) {
+                cls = columns.size();
+                columns.add(column);
+                byHash.computeIfAbsent(hash, h -> new ArrayList<>()).add(cls);
+            }
+            byteClass[symbol.charAt(0)] = cls;
+        }
+        nClasses = columns.size();
+        if ((long) nStates * nClasses > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Transition table too large: " + nStates + " x " + nClasses);
+        }
+
+        dead = (nStates - 1) * nClasses;
+        next = new int[nStates * nClasses];
+        accepting = new boolean[nStates * nClasses];
+        Arrays.fill(next, dead);
+        for (int s = 0; s < dfa.nStates; s++) {
+            accepting[s * nClasses] = dfa.finalStates[s];
+            for (int c = 1; c < nClasses; c++) {
+                int to = columns.get(c)[s];
+                next[s * nClasses + c] = to == -1 ? dead : to * nClasses;
+            }
+        }
+        initial = dfa.nStates == 0 ? dead : dfa.initialState * nClasses;
+    }
+
+    public int initialState() {
+        return initial;
+    }
+
+    public boolean isAccepting(int state) {
+        return accepting[state];
+    }
+
+    public int nClasses() {
+        return nClasses;
+    }
+
+    /**
+     * Reads the input from its position to its limit without moving them.
+     *
+     * @return The state reached from the given state.
+     */
+    public int run(int state, ByteBuffer input) {
+        int[] next = this.next;
+        int[] byteClass = this.byteClass;
+        for (int i = input.position(), end = input.limit(); i < end && state != dead; i++) {
+            state = next[state + byteClass[input.get(i) & 0xFF]];
+        }
+        return state;
+    }
+
+    /**
+     * @return True if the DFA accepts the whole input.
+     */
+    public boolean matches(ByteBuffer input) {
+        return accepting[run(initial, input)];
+    }
+
+    /**
+     * Reports every end of an accepted prefix: after reading the byte at index i, offset + i + 1
+     * is reported if the state reached is accepting. The empty prefix is not reported.
+     *
+     * @return The state reached.
+     */
+    public int scan(int state, ByteBuffer input, long offset, LongConsumer matches) {
+        int[] next = this.next;
+        int[] byteClass = this.byteClass;
+        long base = offset - input.position() + 1;
+        for (int i = input.position(), end = input.limit(); i < end && state != dead; i++) {
+            state = next[state + byteClass[input.get(i) & 0xFF]];
+            if (accepting[state]) {
+                matches.accept(base + i);
+            }
+        }
+        return state;
+    }
+
+    // Number of accepting states reached while reading the input
+    private long count(int state, ByteBuffer input) {
+        long count = 0;
+        for (int i = input.position(), end = input.limit(); i < end && state != dead; i++) {
+            state = next[state + byteClass[input.get(i) & 0xFF]];
+            if (accepting[state]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public boolean matches(Path file) throws IOException {
+        int state = initial;
+        for (ByteBuffer window : map(file, WINDOW)) {
+            state = run(state, window);
+        }
+        return accepting[state];
+    }
+
+    /**
+     * @return The number of matches reported, see scan(int, ByteBuffer, long, LongConsumer).
+     */
+    public long scan(Path file, LongConsumer matches) throws IOException {
+        long[] count = new long[1];
+        LongConsumer counted = position -> {
+            count[0]++;
+            matches.accept(position);
+        };
+        int state = initial;
+        long offset = 0;
+        for (ByteBuffer window : map(file, WINDOW)) {
+            state = scan(state, window, offset, counted);
+            offset += window.remaining();
+        }
+        return count[0];
+    }
+
+    public boolean matches(ByteBuffer input, int nThreads) {
+        int[] starts = runParallel(split(input, nThreads), nThreads);
+        return accepting[starts[starts.length - 1]];
+    }
+
+    public boolean matches(Path file, int nThreads) throws IOException {
+        List<ByteBuffer> chunks = new ArrayList<>();
+        for (ByteBuffer window : map(file, WINDOW)) {
+            chunks.addAll(split(window, nThreads));
+        }
+        int[] starts = runParallel(chunks, nThreads);
+        return accepting[starts[starts.length - 1]];
+    }
+
+    /**
+     * Counts the ends of accepted prefixes in parallel: a first pass finds the state at the
+     * start of every chunk, a second pass counts inside the chunks.
+     */
+    public long countMatches(Path file, int nThreads) throws IOException {
+        List<ByteBuffer> chunks = new ArrayList<>();
+        for (ByteBuffer window : map(file, WINDOW)) {
+            chunks.addAll(split(window, nThreads));
+        }
+        int[] starts = runParallel(chunks, nThreads);
+        ForkJoinPool pool = new ForkJoinPool(nThreads);
+        try {
+            return pool.submit(() -> IntStream.range(0, chunks.size()).parallel()
+                    .mapToLong(c -> count(starts[c], chunks.get(c))).sum()).join();
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    /**
+     * The first chunk runs from the initial state, every other chunk from all states at once.
+     * Then the chunk results are chained in order.
+     *
+     * @return The state at the start of every chunk, and the final state last.
+     */
+    private int[] runParallel(List<ByteBuffer> chunks, int nThreads) {
+        int[][] transfer = new int[chunks.size()][];
+        int[] first = new int[1];
+        ForkJoinPool pool = new ForkJoinPool(nThreads);
+        try {
+            pool.submit(() -> IntStream.range(0, chunks.size()).parallel().forEach(c -> {
+                if (c == 0) {
+                    first[0] = run(initial, chunks.get(0));
+                } else {
+                    transfer[c] = transfer(chunks.get(c));
+                }
+            })).join();
+        } finally {
+            pool.shutdown();
+        }
+        int[] starts = new int[chunks.size() + 1];
+        starts[0] = initial;
+        if (chunks.isEmpty()) {
+            return starts;
+        }
+        starts[1] = first[0];
+        for (int c = 1; c < chunks.size(); c++) {
+            starts[c + 1] = transfer[c][starts[c] / nClasses];
+        }
+        return starts;
+    }
+
+    /**
+     * Runs the chunk from every state. Runs that reach the same state are merged and runs that
+     * reach the dead state are dropped, so after a few bytes a minimized DFA usually has a single
+     * run left.
+     *
+     * @return The state reached from each state (by index).
+     */
+    private int[] transfer(ByteBuffer chunk) {
+        int live = nStates - 1;
+        // Distinct current states, and the run that each start state follows (-1 once dead)
+        int[] current = new int[live];
+        int[] runOf = new int[live];
+        int[] slot = new int[nStates];
+        int[] merged = new int[live];
+        Arrays.fill(slot, -1);
+        for (int s = 0; s < live; s++) {
+            current[s] = s * nClasses;
+            runOf[s] = s;
+        }
+        int runs = live;
+        int i = chunk.position();
+        int end = chunk.limit();
+        while (i < end && runs > 1) {
+            int cls = byteClass[chunk.get(i++) & 0xFF];
+            int m = 0;
+            for (int r = 0; r < runs; r++) {
+                int to = next[current[r] + cls];
+                if (to == dead) {
+                    merged[r] = -1;
+                    continue;
+                }
+                int index = to / nClasses;
+                if (slot[index] == -1) {
+                    slot[index] = m;
+                    current[m++] = to;
+                }
+                merged[r] = slot[index];
+            }
+            for (int r = 0; r < m; r++) {
+                slot[current[r] / nClasses] = -1;
+            }
+            // Without a merge the runs keep their slots, only merges renumber them
+            if (m < runs) {
+                for (int s = 0; s < live; s++) {
+                    runOf[s] = runOf[s] == -1 ? -1 : merged[runOf[s]];
+                }
+            }
+            runs = m;
+        }
+        if (runs == 1) {
+            current[0] = run(current[0], chunk.duplicate().position(i));
+        }
+        int[] result = new int[nStates];
+        for (int s = 0; s < live; s++) {
+            result[s] = runOf[s] == -1 ? dead : current[runOf[s]];
+        }
+        result[live] = dead;
+        return result;
+    }
+
+    private static List<ByteBuffer> split(ByteBuffer input, int nThreads) {
+        int length = input.remaining();
+        int size = Math.max(MIN_CHUNK, (int) Math.min(Integer.MAX_VALUE, (long) length / (4L * nThreads) + 1));
+        List<ByteBuffer> chunks = new ArrayList<>();
+        for (int from = input.position(); from < input.limit(); from += size) {
+            chunks.add(input.duplicate().limit((int) Math.min(input.limit(), (long) from + size)).position(from));
+        }
+        return chunks;
+    }
+
+    // Maps the file in read-only windows of at most the given size
+    private static List<ByteBuffer> map(Path file, long window) throws IOException {
+        List<ByteBuffer> windows = new ArrayList<>();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            for (long from = 0; from < size; from += window) {
+                windows.add(channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(window, size - from)));
+            }
+        }
+        return windows;
+    }
+}
@@ -0,0 +1,112 @@
+/**
+ * @authors https://github.com/ravixr/dfa-minimization
+ */
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+// 128-bit hash of the canonical form of a DFA
+final class Fingerprint {
+    public final long high;
+    public final long low;
+
+    public Fingerprint(long high, long low) {
+        this.high = high;
+        this.low = low;
+    }
+
+    /**
+     * Hashes the canonical form of the automaton (see DFA.canonicalForm) without building it:
+     * only the breadth-first numbering of the states is kept, so a memory-mapped automaton is
+     * not copied to the heap.
+     */
+    public static Fingerprint of(Automaton dfa) {
+        List<String> symbolSet = dfa.symbolSet();
+        int k = symbolSet.size();
+        Integer[] sorted = new Integer[k];
+        for (int a = 0; a < k; a++) {
+            sorted[a] = a;
+        }
+        Arrays.sort(sorted, (a, b) -> symbolSet.get(a).compareTo(symbolSet.get(b)));
+
+        int n = dfa.nStates();
+        int[] order = new int[n];
+        Arrays.fill(order, -1);
+        int[] queue = new int[n];
+        int count = 0;
+        if (n > 0) {
+            int start = dfa.initialState() == -1 ? 0 : dfa.initialState();
+            order[start] = 0;
+            queue[count++] = start;
+        }
+        for (int i = 0; i < count; i++) {
+            for (int a = 0; a < k; a++) {
+                int to = dfa.next(queue[i], sorted[a]);
+                if (to != -1 && order[to] == -1) {
+                    order[to] = count;
+                    queue[count++] = to;
+                }
+            }
+        }
+
+        Hasher h = new Hasher();
+        h.add(count);
+        h.add(k);
+        h.add(0);
+        for (int a = 0; a < k; a++) {
+            byte[] bytes = symbolSet.get(sorted[a]).getBytes(StandardCharsets.UTF_8);
+            h.add(bytes.length);
+            for (byte b : bytes) {
+                h.add(b);
+            }
+        }
+        for (int i = 0; i < count; i++) {
+            h.add(dfa.isFinal(queue[i]) ? 1 : 0);
+        }
+        for (int i = 0; i < count; i++) {
+            for (int a = 0; a < k; a++) {
+                int to = dfa.next(queue[i], sorted[a]);
+                h.add(to == -1 ? -1 : order[to]);
+            }
+        }
+        return new Fingerprint(fmix(h.h1 ^ h.count), fmix(h.h2 ^ h.count));
+    }
+
+    // Two independent 64-bit lanes
+    private static class Hasher {
+        long h1 = 0x243F6A8885A308D3L;
+        long h2 = 0x13198A2E03707344L;
+        long count;
+
+        void add(int value) {
+            long v = value & 0xFFFFFFFFL;
+            h1 = Long.rotateLeft(h1 ^ (v * 0x87C37B91114253D5L), 31) * 0x9E3779B97F4A7C15L + 0x52DCE729;
+            h2 = Long.rotateLeft(h2 ^ (v * 0x4CF5AD432745937FL), 27) * 0xC2B2AE3D27D4EB4FL + 0x38495AB5;
+            count++;
+        }
+    }
+
+    private static long fmix(long h) {
+        h ^= h >>> 33;
+        h *= 0xFF51AFD7ED558CCDL;
+        h ^= h >>> 33;
+        h *= 0xC4CEB9FE1A85EC53L;
+        return h ^ (h >>> 33);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Fingerprint && ((Fingerprint) o).high == high && ((Fingerprint) o).low == low;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(high ^ low);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%016x%016x", high, low);
+    }
+}
@@ -0,0 +1,639 @@
+/**
+ * @authors https://github.com/ravixr/dfa-minimization
+ */
+
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Keeps the Myhill-Nerode partition of a DFA up to date while its transitions are edited.
+ *
+ * Only the states that can reach an edited state change their language, every other state
+ * keeps its block. On update the affected states outside cycles are settled by looking up
+ * their signature, and the rest are refined together with the blocks they could join, so a
+ * batch of edits costs time roughly proportional to the affected region instead of a full
+ * minimization. Once wrapped, the DFA must only be edited through this class.
+ */
+class IncrementalMinimizer {
+    private final DFA dfa;
+    private final int n;
+    private final int k;
+    // Block of each state. Index n is an implicit sink that the missing transitions lead to,
+    // block 0 holds it together with every state whose language is empty
+    public int[] statePartition;
+    // Members of each block as a doubly linked list
+    private int[] blockHead;
+    private int[] blockSize;
+    private int[] nextInBlock;
+    private int[] prevInBlock;
+    private int nBlocks;
+    private int[] freeBlocks;
+    private int nFreeBlocks;
+    // Incoming transitions of the members of each block
+    private int[] blockIn;
+    // Blocks by the hash of their signature: finality and the blocks of the successors
+    private long[] blockKey;
+    private final HashMap<Long, int[]> signatures = new HashMap<>();
+    // Scratch space of update: local index of each affected state and of each block
+    private int[] local;
+    private int[] blockLocal = new int[0];
+    private int[] seen = new int[0];
+    private int seenRound;
+    private int[] mark = new int[0];
+    private int markRound;
+    // Incoming transitions of each state, encoded as from * k + symbol
+    private int[][] in;
+    private int[] inCount;
+    // States edited since the last update
+    private int[] dirty;
+    private int nDirty;
+    private boolean[] isDirty;
+
+    public IncrementalMinimizer(DFA dfa) {
+        this.dfa = dfa;
+        this.n = dfa.nStates;
+        this.k = dfa.symbolSet.size();
+        statePartition = new int[n + 1];
+        blockHead = new int[4];
+        blockSize = new int[4];
+        blockIn = new int[4];
+        blockKey = new long[4];
+        nextInBlock = new int[n + 1];
+        prevInBlock = new int[n + 1];
+        freeBlocks = new int[4];
+        in = new int[n + 1][];
+        inCount = new int[n + 1];
+        dirty = new int[n];
+        isDirty = new boolean[n];
+        local = new int[n + 1];
+        Arrays.fill(local, -1);
+
+        // Every state starts in the sink block, and is refined by the first update
+        nBlocks = 1;
+        blockHead[0] = -1;
+        for (int s = n; s >= 0; s--) {
+            link(s, 0);
+        }
+        for (int s = 0; s < n; s++) {
+            for (int a = 0; a < k; a++) {
+                addIn(succ(s, a), s * k + a);
+            }
+            markDirty(s);
+        }
+        addSignature(0);
+        update();
+    }
+
+    public DFA dfa() {
+        return dfa;
+    }
+
+    /**
+     * Adds a transition, keeping the first one on a symbol like DFA.addTransition.
+     */
+    public boolean addTransition(int from, int to, String symbol) {
+        int a = dfa.symbolId(symbol);
+        if (a == -1 || from < 0 || from >= n || to < 0 || to >= n || dfa.next(from, a) != -1) {
+            return false;
+        }
+        setTransition(from, a, to);
+        return true;
+    }
+
+    public boolean removeTransition(int from, String symbol) {
+        int a = dfa.symbolId(symbol);
+        if (a == -1 || from < 0 || from >= n || dfa.next(from, a) == -1) {
+            return false;
+        }
+        setTransition(from, a, -1);
+        return true;
+    }
+
+    public void setFinal(int state, boolean isFinal) {
+        if (dfa.finalStates[state] != isFinal) {
+            dfa.finalStates[state] = isFinal;
+            markDirty(state);
+        }
+    }
+
+    private void setTransition(int from, int a, int to) {
+        removeIn(succ(from, a), from * k + a);
+        dfa.delta[from * k + a] = to;
+        addIn(succ(from, a), from * k + a);
+        markDirty(from);
+    }
+
+    /**
+     * @return True if both states accept the same language.
+     */
+    public boolean equivalent(int p, int q) {
+        update();
+        return statePartition[p] == statePartition[q];
+    }
+
+    /**
+     * Brings statePartition up to date with the edits made since the last update.
+     */
+    public void update() {
+        if (nDirty == 0) {
+            return;
+        }
+        // Affected states: the edited ones and every state that reaches them
+        int[] affected = new int[nDirty];
+        int nAffected = 0;
+        for (int i = 0; i < nDirty; i++) {
+            local[dirty[i]] = nAffected;
+            affected[nAffected++] = dirty[i];
+            isDirty[dirty[i]] = false;
+        }
+        nDirty = 0;
+        for (int i = 0; i < nAffected; i++) {
+            int s = affected[i];
+            for (int j = 0; j < inCount[s]; j++) {
+                int p = in[s][j] / k;
+                if (local[p] == -1) {
+                    if (nAffected == affected.length) {
+                        affected = Arrays.copyOf(affected, 2 * nAffected);
+                    }
+                    local[p] = nAffected;
+                    affected[nAffected++] = p;
+                }
+            }
+        }
+        for (int i = 0; i < nAffected; i++) {
+            unlink(affected[i]);
+        }
+
+        // Settle the states outside cycles bottom-up: once every successor is settled, the
+        // state joins the block with its signature or starts a new one
+        int[] pending = new int[nAffected];
+        int[] queue = new int[nAffected];
+        int head = 0;
+        int tail = 0;
+        for (int i = 0; i < nAffected; i++) {
+            for (int a = 0; a < k; a++) {
+                if (local[succ(affected[i], a)] != -1) {
+                    pending[i]++;
+                }
+            }
+            if (pending[i] == 0) {
+                queue[tail++] = i;
+            }
+        }
+        while (head < tail) {
+            int s = affected[queue[head++]];
+            int b = findSignature(s);
+            if (b == -1) {
+                b = newBlock();
+                link(s, b);
+                addSignature(b);
+            } else {
+                link(s, b);
+            }
+            local[s] = -1;
+            for (int j = 0; j < inCount[s]; j++) {
+                int p = local[in[s][j] / k];
+                if (p != -1 && --pending[p] == 0) {
+                    queue[tail++] = p;
+                }
+            }
+        }
+        int remaining = 0;
+        for (int i = 0; i < nAffected; i++) {
+            if (local[affected[i]] != -1) {
+                local[affected[i]] = remaining;
+                affected[remaining++] = affected[i];
+            }
+        }
+        nAffected = remaining;
+        if (nAffected == 0) {
+            return;
+        }
+
+        if (mark.length < blockHead.length) {
+            mark = new int[blockHead.length];
+            int size = blockLocal.length;
+            blockLocal = Arrays.copyOf(blockLocal, blockHead.length);
+            Arrays.fill(blockLocal, size, blockLocal.length, -1);
+        }
+
+        // Blocks each remaining state could join: the predecessors of a settled successor, or
+        // the predecessors of the candidates of an affected successor
+        HashMap<Long, int[]> predecessors = new HashMap<>();
+        int[][] candidates = new int[nAffected][];
+        int[] settledSymbol = new int[nAffected];
+        int[] affectedSymbol = new int[nAffected];
+        head = 0;
+        tail = 0;
+        for (int i = 0; i < nAffected; i++) {
+            int s = affected[i];
+            // The settled successor with the fewest incoming transitions is the cheapest to search
+            int best = -1;
+            int inherit = -1;
+            for (int a = 0; a < k; a++) {
+                int to = succ(s, a);
+                if (local[to] != -1) {
+                    if (inherit == -1) {
+                        inherit = a;
+                    }
+                } else if (best == -1 || blockIn[statePartition[to]] < blockIn[statePartition[succ(s, best)]]) {
+                    best = a;
+                }
+            }
+            settledSymbol[i] = best;
+            affectedSymbol[i] = inherit;
+            if (best != -1 && blockIn[statePartition[succ(s, best)]] <= nAffected) {
+                candidates[i] = filter(s, predecessorBlocks(statePartition[succ(s, best)], best, predecessors));
+                queue[tail++] = i;
+            }
+        }
+        // The second pass searches the popular successors that inheriting could not avoid
+        for (int pass = 0; pass < 2; pass++) {
+            if (pass == 1) {
+                for (int i = 0; i < nAffected; i++) {
+                    int s = affected[i];
+                    if (candidates[i] == null && settledSymbol[i] != -1) {
+                        int a = settledSymbol[i];
+                        candidates[i] = filter(s, predecessorBlocks(statePartition[succ(s, a)], a, predecessors));
+                        queue[tail++] = i;
+                    }
+                }
+            }
+            while (head < tail) {
+                int q = affected[queue[head++]];
+                for (int j = 0; j < inCount[q]; j++) {
+                    int t = in[q][j];
+                    int p = local[t / k];
+                    if (candidates[p] == null && t % k == affectedSymbol[p]) {
+                        int[] list = new int[0];
+                        int size = 0;
+                        markRound++;
+                        for (int c : candidates[local[q]]) {
+                            for (int d : predecessorBlocks(c, t % k, predecessors)) {
+                                if (mark[d] != markRound) {
+                                    mark[d] = markRound;
+                                    list = append(list, size++, d);
+                                }
+                            }
+                        }
+                        candidates[p] = filter(affected[p], Arrays.copyOf(list, size));
+                        queue[tail++] = p;
+                    }
+                }
+            }
+        }
+        // Closed regions that never leave the affected states could match any block
+        int[] allBlocks = null;
+        for (int i = 0; i < nAffected; i++) {
+            if (candidates[i] == null) {
+                if (allBlocks == null) {
+                    allBlocks = new int[nBlocks];
+                    int size = 0;
+                    for (int b = 0; b < nBlocks; b++) {
+                        if (blockSize[b] > 0) {
+                            allBlocks[size++] = b;
+                        }
+                    }
+                    allBlocks = Arrays.copyOf(allBlocks, size);
+                }
+                candidates[i] = filter(affected[i], allBlocks);
+            }
+        }
+
+        // Local automaton: the affected states, then the candidate blocks, then one leaf
+        // for each other block that is reached
+        int[] nodes = new int[nAffected];
+        int nNodes = nAffected;
+        for (int[] list : candidates) {
+            for (int c : list) {
+                if (blockLocal[c] == -1) {
+                    if (nNodes == nodes.length) {
+                        nodes = Arrays.copyOf(nodes, 2 * nNodes);
+                    }
+                    blockLocal[c] = nNodes;
+                    nodes[nNodes++] = c;
+                }
+            }
+        }
+        int nInner = nNodes;
+        int[] tails = new int[nInner * k];
+        int[] heads = new int[nInner * k];
+        int[] labels = new int[nInner * k];
+        int m = 0;
+        for (int u = 0; u < nInner; u++) {
+            int s = u < nAffected ? affected[u] : representative(nodes[u]);
+            for (int a = 0; a < k; a++) {
+                int to = succ(s, a);
+                int v = local[to];
+                if (v == -1) {
+                    int d = statePartition[to];
+                    if (blockLocal[d] == -1) {
+                        if (nNodes == nodes.length) {
+                            nodes = Arrays.copyOf(nodes, 2 * nNodes);
+                        }
+                        blockLocal[d] = nNodes;
+                        nodes[nNodes++] = d;
+                    }
+                    v = blockLocal[d];
+                }
+                tails[m] = u;
+                heads[m] = v;
+                labels[m++] = a;
+            }
+        }
+
+        // Final and non-final inner nodes, and every leaf on its own
+        RefinablePartition blocks = new RefinablePartition(nNodes);
+        for (int u = 0; u < nInner; u++) {
+            if (isFinal(u < nAffected ? affected[u] : representative(nodes[u]))) {
+                blocks.mark(u);
+            }
+        }
+        blocks.split();
+        for (int u = nInner; u < nNodes; u++) {
+            blocks.mark(u);
+            blocks.split();
+        }
+        DFA.refine(blocks, nNodes, k, m, tails, heads, labels);
+        for (int u = nAffected; u < nNodes; u++) {
+            blockLocal[nodes[u]] = -1;
+        }
+
+        // Affected states join the candidate in their local block, or a new block
+        int[] target = new int[blocks.z];
+        Arrays.fill(target, -1);
+        for (int u = nAffected; u < nInner; u++) {
+            target[blocks.set[u]] = nodes[u];
+        }
+        int[] created = new int[0];
+        int nCreated = 0;
+        for (int u = 0; u < nAffected; u++) {
+            int b = blocks.set[u];
+            if (target[b] == -1) {
+                target[b] = newBlock();
+                created = append(created, nCreated++, target[b]);
+            }
+            link(affected[u], target[b]);
+            local[affected[u]] = -1;
+        }
+        for (int i = 0; i < nCreated; i++) {
+            addSignature(created[i]);
+        }
+    }
+
+    /**
+     * @return The minimal DFA of the current language, states numbered in breadth-first order.
+     */
+    public DFA minimized() {
+        update();
+        int initial = statePartition[dfa.initialState];
+        if (initial == 0) {
+            DFA empty = new DFA(1, dfa.symbolSet);
+            empty.initialState = 0;
+            return empty;
+        }
+        int[] order = new int[nBlocks];
+        Arrays.fill(order, -1);
+        int[] blocks = new int[nBlocks];
+        int count = 0;
+        order[initial] = count;
+        blocks[count++] = initial;
+        for (int i = 0; i < count; i++) {
+            int s = blockHead[blocks[i]];
+            for (int a = 0; a < k; a++) {
+                int b = statePartition[succ(s, a)];
+                if (b != 0 && order[b] == -1) {
+                    order[b] = count;
+                    blocks[count++] = b;
+                }
+            }
+        }
+        DFA min = new DFA(count, dfa.symbolSet);
+        min.initialState = 0;
+        for (int i = 0; i < count; i++) {
+            int s = blockHead[blocks[i]];
+            min.finalStates[i] = isFinal(s);
+            for (int a = 0; a < k; a++) {
+                int b = statePartition[succ(s, a)];
+                if (b != 0) {
+                    min.delta[i * k + a] = order[b];
+                }
+            }
+        }
+        return min;
+    }
+
+    // Block 0 is represented by the sink, since the block holds every state until the first update
+    private int representative(int b) {
+        return b == 0 ? n : blockHead[b];
+    }
+
+    private int succ(int s, int a) {
+        if (s == n) {
+            return n;
+        }
+        int to = dfa.delta[s * k + a];
+        return to == -1 ? n : to;
+    }
+
+    private boolean isFinal(int s) {
+        return s != n && dfa.finalStates[s];
+    }
+
+    // Unaffected blocks with a transition on a into block d
+    private int[] predecessorBlocks(int d, int a, HashMap<Long, int[]> cache) {
+        long key = (long) d * k + a;
+        int[] list = cache.get(key);
+        if (list != null) {
+            return list;
+        }
+        list = new int[4];
+        int size = 0;
+        if (seen.length < nBlocks) {
+            seen = new int[blockHead.length];
+        }
+        seenRound++;
+        for (int q = blockHead[d]; q != -1; q = nextInBlock[q]) {
+            // The sink loops on itself
+            if (q == n && seen[d] != seenRound) {
+                seen[d] = seenRound;
+                list = append(list, size++, d);
+            }
+            for (int j = 0; j < inCount[q]; j++) {
+                int t = in[q][j];
+                int b = statePartition[t / k];
+                if (t % k == a && b != -1 && seen[b] != seenRound) {
+                    seen[b] = seenRound;
+                    list = append(list, size++, b);
+                }
+            }
+        }
+        list = Arrays.copyOf(list, size);
+        cache.put(key, list);
+        return list;
+    }
+
+    private long signatureHash(int s) {
+        long h = isFinal(s) ? 1 : 0;
+        for (int a = 0; a < k; a++) {
+            h = h * 0x9E3779B97F4A7C15L + statePartition[succ(s, a)];
+        }
+        return h ^ (h >>> 29);
+    }
+
+    private boolean sameSignature(int s, int t) {
+        if (isFinal(s) != isFinal(t)) {
+            return false;
+        }
+        for (int a = 0; a < k; a++) {
+            if (statePartition[succ(s, a)] != statePartition[succ(t, a)]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // The block whose signature matches the state, or -1
+    private int findSignature(int s) {
+        int[] bucket = signatures.get(signatureHash(s));
+        if (bucket != null) {
+            for (int b : bucket) {
+                if (sameSignature(s, representative(b))) {
+                    return b;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private void addSignature(int b) {
+        long key = signatureHash(representative(b));
+        blockKey[b] = key;
+        int[] bucket = signatures.get(key);
+        if (bucket == null) {
+            bucket = new int[] {b};
+        } else {
+            bucket = Arrays.copyOf(bucket, bucket.length + 1);
+            bucket[bucket.length - 1] = b;
+        }
+        signatures.put(key, bucket);
+    }
+
+    private void removeSignature(int b) {
+        int[] bucket = signatures.get(blockKey[b]);
+        if (bucket.length == 1) {
+            signatures.remove(blockKey[b]);
+            return;
+        }
+        int[] rest = new int[bucket.length - 1];
+        int size = 0;
+        for (int c : bucket) {
+            if (c != b) {
+                rest[size++] = c;
+            }
+        }
+        signatures.put(blockKey[b], rest);
+    }
+
+    // Keeps the blocks that agree with the state on finality and on its unaffected successors
+    private int[] filter(int s, int[] blocks) {
+        int[] result = new int[blocks.length];
+        int size = 0;
+        for (int c : blocks) {
+            int r = representative(c);
+            boolean match = isFinal(r) == isFinal(s);
+            for (int a = 0; a < k && match; a++) {
+                int to = succ(s, a);
+                match = local[to] != -1 || statePartition[succ(r, a)] == statePartition[to];
+            }
+            if (match) {
+                result[size++] = c;
+            }
+        }
+        return Arrays.copyOf(result, size);
+    }
+
+    private static int[] append(int[] list, int size, int value) {
+        if (size == list.length) {
+            list = Arrays.copyOf(list, 2 * size + 4);
+        }
+        list[size] = value;
+        return list;
+    }
+
+    private void markDirty(int s) {
+        if (!isDirty[s]) {
+            isDirty[s] = true;
+            dirty[nDirty++] = s;
+        }
+    }
+
+    private void addIn(int to, int transition) {
+        if (in[to] == null) {
+            in[to] = new int[2];
+        } else if (inCount[to] == in[to].length) {
+            in[to] = Arrays.copyOf(in[to], 2 * inCount[to]);
+        }
+        in[to][inCount[to]++] = transition;
+        blockIn[statePartition[to]]++;
+    }
+
+    private void removeIn(int to, int transition) {
+        for (int j = 0; j < inCount[to]; j++) {
+            if (in[to][j] == transition) {
+                in[to][j] = in[to][--inCount[to]];
+                blockIn[statePartition[to]]--;
+                return;
+            }
+        }
+    }
+
+    private int newBlock() {
+        if (nFreeBlocks > 0) {
+            return freeBlocks[--nFreeBlocks];
+        }
+        if (nBlocks == blockHead.length) {
+            blockHead = Arrays.copyOf(blockHead, 2 * nBlocks);
+            blockSize = Arrays.copyOf(blockSize, 2 * nBlocks);
+            blockIn = Arrays.copyOf(blockIn, 2 * nBlocks);
+            blockKey = Arrays.copyOf(blockKey, 2 * nBlocks);
+        }
+        blockHead[nBlocks] = -1;
+        blockSize[nBlocks] = 0;
+        blockIn[nBlocks] = 0;
+        return nBlocks++;
+    }
+
+    private void link(int s, int b) {
+        statePartition[s] = b;
+        prevInBlock[s] = -1;
+        nextInBlock[s] = blockHead[b];
+        if (blockHead[b] != -1) {
+            prevInBlock[blockHead[b]] = s;
+        }
+        blockHead[b] = s;
+        blockSize[b]++;
+        blockIn[b] += inCount[s];
+    }
+
+    private void unlink(int s) {
+        int b = statePartition[s];
+        if (prevInBlock[s] == -1) {
+            blockHead[b] = nextInBlock[s];
+        } else {
+            nextInBlock[prevInBlock[s]] = nextInBlock[s];
+        }
+        if (nextInBlock[s] != -1) {
+            prevInBlock[nextInBlock[s]] = prevInBlock[s];
+        }
+        statePartition[s] = -1;
+        blockIn[b] -= inCount[s];
+        if (--blockSize[b] == 0 && b != 0) {
+            removeSignature(b);
+            if (nFreeBlocks == freeBlocks.length) {
+                freeBlocks = Arrays.copyOf(freeBlocks, 2 * nFreeBlocks);
+            }
+            freeBlocks[nFreeBlocks++] = b;
+        }
+    }
+}
@@ -0,0 +1,253 @@
+/**
+ * @authors https://github.com/ravixr/dfa-minimization
+ */
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+
+// Reads a JFLAP 7.0 automaton in one pass, filling the transition table as the elements arrive.
+// Empty moves and second transitions on a symbol are kept aside, making the automaton an NFA.
+class JFLAPLoader {
+    // Looking up the factory implementation is slow, and creating readers from it is thread-safe
+    private static final XMLInputFactory FACTORY = XMLInputFactory.newInstance();
+
+    // Transition table with room for capacity states and stride symbols per state
+    private int[] delta = new int[0];
+    private int stride = 1;
+    private int capacity = 0;
+    private int nStates = 0;
+    private int initialState = -1;
+    private boolean[] finalStates = new boolean[0];
+    private final List<String> symbolSet = new ArrayList<>();
+    private final HashMap<String, Integer> symbolIndex = new HashMap<>();
+    // JFLAP state id -> state index, open addressing
+    private int[] idKeys = new int[16];
+    private int[] idValues = new int[16];
+    // Transitions that do not fit the table, symbol -1 is an empty move
+    private int[] extraFrom = new int[0];
+    private int[] extraSymbol = new int[0];
+    private int[] extraTo = new int[0];
+    private int nExtra = 0;
+
+    private JFLAPLoader() {
+        Arrays.fill(idValues, -1);
+    }
+
+    /**
+     * Nondeterministic automata are determinized by subset construction.
+     */
+    public static DFA load(Path path) throws IOException, XMLStreamException {
+        return load(path, MinimizationStats.disabled());
+    }
+
+    /**
+     * Like load(path), recording the parse and any subset construction as phases of stats.
+     */
+    public static DFA load(Path path, MinimizationStats stats) throws IOException, XMLStreamException {
+        JFLAPLoader loader = parse(path, stats);
+        return loader.nExtra == 0 ? loader.toDFA() : loader.toNFA().determinize(stats);
+    }
+
+    public static DFA load(InputStream in) throws XMLStreamException {
+        JFLAPLoader loader = new JFLAPLoader();
+        loader.read(in);
+        return loader.nExtra == 0 ? loader.toDFA() : loader.toNFA().determinize();
+    }
+
+    public static NFA loadNFA(Path path) throws IOException, XMLStreamException {
+        return loadNFA(path, MinimizationStats.disabled());
+    }
+
+    /**
+     * Like loadNFA(path), recording the parse as a phase of stats.
+     */
+    public static NFA loadNFA(Path path, MinimizationStats stats) throws IOException, XMLStreamException {
+        return parse(path, stats).toNFA();
+    }
+
+    private static JFLAPLoader parse(Path path, MinimizationStats stats) throws IOException, XMLStreamException {
+        MinimizationStats.Phase phase = stats.begin("parse");
+        JFLAPLoader loader = new JFLAPLoader();
+        try (InputStream in = new BufferedInputStream(Files.newInputStream(path), 1 << 16)) {
+            loader.read(in);
+        }
+        stats.end(phase);
+        return loader;
+    }
+
+    private void read(InputStream in) throws XMLStreamException {
+        XMLStreamReader reader = FACTORY.createXMLStreamReader(in);
+        int state = -1;
+        int from = -1;
+        int to = -1;
+        String symbol = null;
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                switch (reader.getLocalName()) {
+                    case "state":
+                        state = stateIndex(Integer.parseInt(reader.getAttributeValue(null, "id")));
+                        break;
+                    case "initial":
+                        initialState = state;
+                        break;
+                    case "final":
+                        finalStates[state] = true;
+                        break;
+                    case "transition":
+                        from = -1;
+                        to = -1;
+                        symbol = null;
+                        break;
+                    case "from":
+                        from = stateIndex(Integer.parseInt(reader.getElementText().trim()));
+                        break;
+                    case "to":
+                        to = stateIndex(Integer.parseInt(reader.getElementText().trim()));
+                        break;
+                    case "read":
+                        symbol = reader.getElementText().trim();
+                        break;
+                    default:
+                        break;
+                }
+            } else if (event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals("transition")) {
+                if (from != -1 && to != -1 && symbol != null) {
+                    if (symbol.isEmpty()) {
+                        addExtra(from, -1, to);
+                    } else {
+                        addTransition(from, to, symbol);
+                    }
+                }
+            }
+        }
+        reader.close();
+    }
+
+    private DFA toDFA() {
+        // Trim the table to the final number of states and symbols
+        int k = symbolSet.size();
+        int[] table = delta;
+        if (stride != k || capacity != nStates) {
+            table = new int[nStates * k];
+            for (int s = 0; s < nStates; s++) {
+                System.arraycopy(delta, s * stride, table, s * k, k);
+            }
+        }
+        delta = null;
+        return new DFA(nStates, symbolSet, initialState == -1 ? 0 : initialState,
+                Arrays.copyOf(finalStates, nStates), table);
+    }
+
+    // The table and the transitions kept aside
+    private NFA toNFA() {
+        for (int s = 0; s < nStates; s++) {
+            for (int a = 0; a < symbolSet.size(); a++) {
+                if (delta[s * stride + a] != -1) {
+                    addExtra(s, a, delta[s * stride + a]);
+                }
+            }
+        }
+        return new NFA(nStates, symbolSet, initialState == -1 ? 0 : initialState,
+                Arrays.copyOf(finalStates, nStates), extraFrom, extraSymbol, extraTo, nExtra);
+    }
+
+    private void addExtra(int from, int symbol, int to) {
+        if (nExtra == extraFrom.length) {
+            int length = 2 * nExtra + 16;
+            extraFrom = Arrays.copyOf(extraFrom, length);
+            extraSymbol = Arrays.copyOf(extraSymbol, length);
+            extraTo = Arrays.copyOf(extraTo, length);
+        }
+        extraFrom[nExtra] = from;
+        extraSymbol[nExtra] = symbol;
+        extraTo[nExtra++] = to;
+    }
+
+    private void addTransition(int from, int to, String symbol) {
+        Integer a = symbolIndex.get(symbol);
+        if (a == null) {
+            a = symbolSet.size();
+            symbolSet.add(symbol);
+            symbolIndex.put(symbol, a);
+            if (a == stride) {
+                resize(capacity, 2 * stride);
+            }
+        }
+        // The first transition on a symbol goes in the table, like DFA.addTransition
+        int first = delta[from * stride + a];
+        if (first == -1) {
+            delta[from * stride + a] = to;
+        } else if (first != to) {
+            addExtra(from, a, to);
+        }
+    }
+
+    private int stateIndex(int id) {
+        int mask = idKeys.length - 1;
+        int slot = slot(id, mask);
+        while (idValues[slot] != -1) {
+            if (idKeys[slot] == id) {
+                return idValues[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        int index = nStates++;
+        idKeys[slot] = id;
+        idValues[slot] = index;
+        if (nStates > capacity) {
+            resize(capacity + (capacity >> 1) + 16, stride);
+        }
+        if (2 * nStates > idKeys.length) {
+            rehash();
+        }
+        return index;
+    }
+
+    private void resize(int newCapacity, int newStride) {
+        int[] table = new int[newCapacity * newStride];
+        Arrays.fill(table, -1);
+        for (int s = 0; s < Math.min(nStates, capacity); s++) {
+            System.arraycopy(delta, s * stride, table, s * newStride, Math.min(stride, newStride));
+        }
+        delta = table;
+        stride = newStride;
+        capacity = newCapacity;
+        finalStates = Arrays.copyOf(finalStates, newCapacity);
+    }
+
+    private static int slot(int id, int mask) {
+        int h = id * 0x9E3779B9;
+        return (h ^ (h >>> 16)) & mask;
+    }
+
+    private void rehash() {
+        int[] keys = idKeys;
+        int[] values = idValues;
+        idKeys = new int[2 * keys.length];
+        idValues = new int[2 * keys.length];
+        Arrays.fill(idValues, -1);
+        int mask = idKeys.length - 1;
+        for (int i = 0; i < keys.length; i++) {
+            if (values[i] != -1) {
+                int slot = slot(keys[i], mask);
+                while (idValues[slot] != -1) {
+                    slot = (slot + 1) & mask;
+                }
+                idKeys[slot] = keys[i];
+                idValues[slot] = values[i];
+            }
+        }
+    }
+}
@@ -2,34 +2,154 @@
  * @authors https://github.com/ravixr/dfa-minimization
  */
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import javax.xml.stream.XMLStreamException;
+
 class Main {
 
-    // Usage: java Main <input_file> <method_number> (1 or 2)
+    // Usage: java Main [--stats] <input_file> <method_number> (1, 2, 3, 4, 5, 6 or 7) [threads]
+    //        java Main --batch <directory_or_glob> <method_number> [threads] [cache_directory]
     public static void main(String[] args) throws Exception {
 
-        if (args.length != 2) {
-            throw new IllegalArgumentException("Usage: java Main <input_file> <method_number> (1 or 2)");
+        if (args.length > 0 && args[0].equals("--batch")) {
+            if (args.length < 3 || args.length > 5) {
+                throw new IllegalArgumentException(
+                        "Usage: java Main --batch <directory_or_glob> <method_number> [threads] [cache_directory]");
+            }
+            int threads = args.length >= 4 ? Integer.parseInt(args[3]) : Runtime.getRuntime().availableProcessors();
+            MinimizationCache cache = new MinimizationCache(4096, args.length == 5 ? Paths.get(args[4]) : null);
+            new BatchMinimizer(Integer.parseInt(args[2]), threads, cache).run(BatchMinimizer.findFiles(args[1]));
+            return;
+        }
+        // --stats prints a JSON summary of the phases instead of the automata
+        List<String> rest = new ArrayList<>(Arrays.asList(args));
+        boolean printStats = rest.remove("--stats");
+        args = rest.toArray(new String[0]);
+        if (args.length != 2 && args.length != 3) {
+            throw new IllegalArgumentException("Usage: java Main [--stats] <input_file> <method_number> (1, 2, 3, 4, 5, 6 or 7) [threads]");
         }
+        int threads = args.length == 3 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+
+        MinimizationStats stats = printStats ? new MinimizationStats() : MinimizationStats.disabled();
 
-        DFA dfa = DFA.FromJFLAPXML(args[0]);
-        DFA min = null;
-        if (Integer.parseInt(args[1]) == 1) {
-            min = dfa.stdMinimization();
-        } else if (Integer.parseInt(args[1]) == 2) {
-            min = dfa.stdMinimization2();
+        // Binary files are recognized by their magic number, anything else is read as JFLAP
+        Path path = DFA.testsPath(args[0]);
+        boolean binary = BinaryDFA.isBinary(path);
+        int method = Integer.parseInt(args[1]);
+        Object original;
+        int states;
+        DFA min;
+        MinimizationStats.Phase phase;
+        if (method == 6) {
+            // Brzozowski reads the file as an NFA, which is also verified directly so that the
+            // subset DFA of the input is never built
+            NFA nfa = binary ? NFA.of(BinaryDFA.load(path, stats)) : JFLAPLoader.loadNFA(path, stats);
+            min = nfa.brzozowskiMinimization(stats);
+            phase = stats.begin("verify");
+            verify(nfa, min);
+            original = nfa;
+            states = nfa.nStates;
         } else {
-            throw new IllegalArgumentException("Method number must be either 1 or 2");
+            Automaton dfa = load(path, method, stats);
+            min = minimize(dfa, method, threads, stats);
+            phase = stats.begin("verify");
+            verify(dfa, min);
+            original = dfa;
+            states = dfa.nStates();
         }
-        
+        stats.end(phase);
+
         int lastDot = args[0].lastIndexOf('.');
         if (lastDot == -1) {
             lastDot = args[0].length();
         }
-        String filename = args[0].substring(0, lastDot) + ".min.jff";
-        min.SaveJFLAPXML(filename);
+        String filename = args[0].substring(0, lastDot) + (binary ? ".min" + BinaryDFA.EXTENSION : ".min.jff");
+        phase = stats.begin("write");
+        if (binary) {
+            BinaryDFA.write(min, DFA.testsPath(filename));
+        } else {
+            min.SaveJFLAPXML(filename);
+        }
+        stats.end(phase);
 
-        System.out.println("Original DFA:" + dfa);
+        if (printStats) {
+            System.out.println("{\"input\":\"" + args[0].replace("\\", "\\\\").replace("\"", "\\\"")
+                    + "\",\"method\":" + args[1] + ",\"states\":" + states + ",\"minStates\":" + min.nStates
+                    + ",\"stats\":" + stats.toJSON() + "}");
+            return;
+        }
+        System.out.println((method == 6 ? "Original NFA:" : "Original DFA:") + original);
         System.out.println("Minimized DFA:" + min);
         System.out.println("Minimized version saved to " + filename);
     }
-}
\ No newline at end of file
+
+    /**
+     * Reads a binary or JFLAP file. Binary files are mapped rather than copied to the heap when
+     * the method runs on any Automaton, which only Hopcroft's algorithm (method 3) does.
+     */
+    public static Automaton load(Path path, int method, MinimizationStats stats)
+            throws IOException, XMLStreamException {
+        if (!BinaryDFA.isBinary(path)) {
+            return JFLAPLoader.load(path, stats);
+        }
+        return method == 3 ? BinaryDFA.map(path, stats) : BinaryDFA.load(path, stats);
+    }
+
+    // Cheap check that the minimization kept the language
+    public static void verify(Automaton dfa, DFA min) {
+        List<String> word = DFA.counterexample(dfa, min);
+        if (word != null) {
+            throw new IllegalStateException("Minimized DFA disagrees with the original on the word " + word);
+        }
+    }
+
+    // Same check against an NFA, on the subsets it reaches rather than its whole subset DFA
+    public static void verify(NFA nfa, DFA min) {
+        List<String> word = nfa.counterexample(min);
+        if (word != null) {
+            throw new IllegalStateException("Minimized DFA disagrees with the original on the word " + word);
+        }
+    }
+
+    public static DFA minimize(Automaton input, int method, int threads) {
+        return minimize(input, method, threads, MinimizationStats.disabled());
+    }
+
+    /**
+     * @param input A DFA, or for method 3 any Automaton such as a memory-mapped file (see load).
+     */
+    public static DFA minimize(Automaton input, int method, int threads, MinimizationStats stats) {
+        if (!(input instanceof DFA)) {
+            if (method != 3) {
+                throw new IllegalArgumentException("Only method 3 minimizes a memory-mapped DFA");
+            }
+            MinimizationStats.Phase phase = stats.begin("refine");
+            DFA min = DFA.hopcroftMinimization(input, stats);
+            stats.end(phase);
+            return min;
+        }
+        DFA dfa = (DFA) input;
+        if (method == 1) {
+            return dfa.stdMinimization(stats);
+        } else if (method == 2) {
+            return dfa.stdMinimization2(stats);
+        } else if (method == 3) {
+            return dfa.hopcroftMinimization(stats);
+        } else if (method == 4) {
+            return dfa.valmariMinimization(stats);
+        } else if (method == 5) {
+            return dfa.parallelMinimization(threads, stats);
+        } else if (method == 6) {
+            return NFA.of(dfa).brzozowskiMinimization(stats);
+        } else if (method == 7) {
+            return dfa.signatureMinimization(stats);
+        } else {
+            throw new IllegalArgumentException("Method number must be either 1, 2, 3, 4, 5, 6 or 7");
+        }
+    }
+}
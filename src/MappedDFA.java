@@ -0,0 +1,84 @@
+/**
+ * @authors https://github.com/ravixr/dfa-minimization
+ */
+
+import java.io.IOException;
+import java.nio.IntBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// DFA backed by a memory-mapped binary file
+class MappedDFA implements Automaton {
+    private final int nStates;
+    private final int initialState;
+    private final List<String> symbolSet;
+    private final IntBuffer finals;
+    final IntBuffer transitions;
+
+    MappedDFA(MappedByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < 20 || buffer.getInt() != BinaryDFA.MAGIC) {
+            throw new IOException("Not a binary DFA file");
+        }
+        int version = buffer.getInt();
+        if (version != BinaryDFA.VERSION) {
+            throw new IOException("Unsupported binary DFA version " + version);
+        }
+        nStates = buffer.getInt();
+        int k = buffer.getInt();
+        initialState = buffer.getInt();
+        BinaryDFA.checkHeader(nStates, k, initialState);
+        symbolSet = new ArrayList<>(k);
+        for (int a = 0; a < k; a++) {
+            int length = buffer.remaining() < 4 ? -1 : buffer.getInt();
+            if (length < 0 || length > buffer.remaining()) {
+                throw new IOException("Truncated binary DFA file");
+            }
+            byte[] bytes = new byte[length];
+            buffer.get(bytes);
+            symbolSet.add(new String(bytes, StandardCharsets.UTF_8));
+            buffer.position(Math.min(buffer.limit(), (buffer.position() + 3) & ~3));
+        }
+        int words = (nStates + 31) / 32;
+        if (buffer.remaining() < 4L * words + 4L * nStates * k) {
+            throw new IOException("Truncated binary DFA file");
+        }
+        finals = buffer.slice().asIntBuffer();
+        finals.limit(words);
+        buffer.position(buffer.position() + 4 * words);
+        transitions = buffer.slice().asIntBuffer();
+        transitions.limit(nStates * k);
+    }
+
+    @Override
+    public int nStates() {
+        return nStates;
+    }
+
+    @Override
+    public List<String> symbolSet() {
+        return symbolSet;
+    }
+
+    @Override
+    public int initialState() {
+        return initialState;
+    }
+
+    @Override
+    public boolean isFinal(int state) {
+        return (finals.get(state >>> 5) >>> (state & 31) & 1) != 0;
+    }
+
+    @Override
+    public int next(int state, int symbol) {
+        return transitions.get(state * symbolSet.size() + symbol);
+    }
+
+    // The transitions are not printed, they may not fit in memory as a string
+    @Override
+    public String toString() {
+        return "\nMemory-mapped DFA with " + nStates + " states and " + symbolSet.size() + " symbols\n";
+    }
+}
@@ -0,0 +1,143 @@
+/**
+ * @authors https://github.com/ravixr/dfa-minimization
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Bounded LRU cache of minimized DFAs, keyed by the fingerprint of the input DFA. Inputs that
+ * are repeated or only renumbered share a fingerprint, so they skip minimization. Entries can
+ * also be kept in a directory, in the binary format, to survive between runs.
+ */
+class MinimizationCache {
+    private final int capacity;
+    private final Path directory;
+    private final LinkedHashMap<Fingerprint, DFA> entries;
+    private final ConcurrentHashMap<Fingerprint, CompletableFuture<DFA>> pending = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong waits = new AtomicLong();
+    private final AtomicLong diskHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public MinimizationCache(int capacity) {
+        this(capacity, null);
+    }
+
+    /**
+     * @param directory Directory for the entries on disk, or null to keep them in memory only.
+     */
+    public MinimizationCache(int capacity, Path directory) {
+        this.capacity = capacity;
+        this.directory = directory;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Fingerprint, DFA> eldest) {
+                return size() > MinimizationCache.this.capacity;
+            }
+        };
+    }
+
+    /**
+     * @param dfa Input, which may be a view such as a memory-mapped automaton: it is hashed in
+     *            place, and only read again by the minimizer.
+     * @param minimizer Minimization method, called only if the DFA is not cached.
+     * @return The canonical form of the minimized DFA.
+     */
+    public <A extends Automaton> DFA minimize(A dfa, Function<? super A, DFA> minimizer) {
+        Fingerprint key = Fingerprint.of(dfa);
+        DFA min;
+        synchronized (entries) {
+            min = entries.get(key);
+        }
+        if (min != null) {
+            hits.incrementAndGet();
+            return min.clone();
+        }
+        // Equal inputs minimized at the same time wait for the first one
+        CompletableFuture<DFA> result = new CompletableFuture<>();
+        CompletableFuture<DFA> running = pending.putIfAbsent(key, result);
+        if (running != null) {
+            waits.incrementAndGet();
+            return running.join().clone();
+        }
+        try {
+            min = compute(key, dfa, minimizer);
+            synchronized (entries) {
+                entries.put(key, min);
+            }
+            result.complete(min);
+        } catch (RuntimeException e) {
+            result.completeExceptionally(e);
+            throw e;
+        } finally {
+            pending.remove(key);
+        }
+        return min.clone();
+    }
+
+    private <A extends Automaton> DFA compute(Fingerprint key, A dfa, Function<? super A, DFA> minimizer) {
+        DFA min;
+        synchronized (entries) {
+            min = entries.get(key);
+        }
+        if (min != null) {
+            hits.incrementAndGet();
+            return min;
+        }
+        Path file = directory == null ? null : directory.resolve(key + BinaryDFA.EXTENSION);
+        try {
+            if (file != null && Files.exists(file)) {
+                min = BinaryDFA.load(file);
+                diskHits.incrementAndGet();
+            } else {
+                min = minimizer.apply(dfa).canonicalForm();
+                misses.incrementAndGet();
+                if (file != null) {
+                    Files.createDirectories(directory);
+                    // Write to a temporary file first so readers never see a partial entry
+                    Path tmp = Files.createTempFile(directory, key.toString(), ".tmp");
+                    BinaryDFA.write(min, tmp);
+                    Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return min;
+    }
+
+    // Lookups answered from memory
+    public long hits() {
+        return hits.get();
+    }
+
+    // Lookups that waited for an equal input being minimized by another thread
+    public long waits() {
+        return waits.get();
+    }
+
+    // Lookups answered from the directory
+    public long diskHits() {
+        return diskHits.get();
+    }
+
+    public long misses() {
+        return misses.get();
+    }
+
+    public int size() {
+        synchronized (entries) {
+            return entries.size();
+        }
+    }
+}
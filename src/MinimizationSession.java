@@ -0,0 +1,281 @@
+/**
+ * @authors https://github.com/ravixr/dfa-minimization
+ */
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Hopcroft's partition refinement with its scratch arrays kept from one call to the next, for
+ * minimizing many small automata: once the arrays have grown to the largest input, a call
+ * allocates nothing, and the result is written into a DFABuffer owned by the caller. A session
+ * is not thread-safe, keep one per thread.
+ */
+class MinimizationSession {
+    // Renumbering of the reachable states
+    private int[] id = new int[0];
+    private int[] order = new int[0];
+    // Transitions, including those of the sink, and their inverse grouped by (symbol, target)
+    private int[] trans = new int[0];
+    private int[] invStart = new int[0];
+    private int[] inv = new int[0];
+    private int[] fill = new int[0];
+    // Partition: the states of block b are elems[first[b]..end[b])
+    private int[] elems = new int[0];
+    private int[] loc = new int[0];
+    private int[] block = new int[0];
+    private int[] first = new int[0];
+    private int[] end = new int[0];
+    private int[] marked = new int[0];
+    // Splitter worklist of (block, symbol) pairs
+    private boolean[] inWork = new boolean[0];
+    private int[] work = new int[0];
+    private int[] splitter = new int[0];
+    private int[] touched = new int[0];
+    private int[] newId = new int[0];
+
+    /**
+     * Minimizes the states reachable from the initial state. Missing transitions go to an
+     * implicit sink that is dropped from the result, along with the states that cannot reach
+     * a final state. The output keeps a reference to the symbol list of the input.
+     */
+    public void minimize(Automaton dfa, DFABuffer out) {
+        minimize(dfa, out, MinimizationStats.disabled());
+    }
+
+    /**
+     * Like minimize(dfa, out), adding the splitters processed, the blocks split and the number
+     * of blocks to the counters of stats. No phase is recorded.
+     */
+    public void minimize(Automaton dfa, DFABuffer out, MinimizationStats stats) {
+        int nStates = dfa.nStates();
+        int initialState = dfa.initialState();
+        List<String> symbolSet = dfa.symbolSet();
+        int k = symbolSet.size();
+        if (nStates == 0) {
+            out.reset(0, symbolSet);
+            out.initialState = -1;
+            return;
+        }
+
+        // Renumber the reachable states
+        id = ensure(id, nStates);
+        order = ensure(order, nStates);
+        int[] id = this.id;
+        int[] order = this.order;
+        Arrays.fill(id, 0, nStates, -1);
+        int n = 0;
+        id[initialState] = n;
+        order[n++] = initialState;
+        for (int head = 0; head < n; head++) {
+            for (int a = 0; a < k; a++) {
+                int to = dfa.next(order[head], a);
+                if (to != -1 && id[to] == -1) {
+                    id[to] = n;
+                    order[n++] = to;
+                }
+            }
+        }
+        // The sink is always added, so states that cannot reach a final state merge into its
+        // block and are dropped with it even when the automaton is complete
+        int sink = n;
+        int size = n + 1;
+
+        trans = ensure(trans, size * k);
+        int[] trans = this.trans;
+        for (int s = 0; s < n; s++) {
+            for (int a = 0; a < k; a++) {
+                int to = dfa.next(order[s], a);
+                trans[s * k + a] = to == -1 ? sink : id[to];
+            }
+        }
+        for (int a = 0; a < k; a++) {
+            trans[sink * k + a] = sink;
+        }
+
+        // Inverse transitions, grouped by (symbol, target)
+        invStart = ensure(invStart, k * size + 1);
+        inv = ensure(inv, size * k);
+        fill = ensure(fill, k * size);
+        int[] invStart = this.invStart;
+        int[] inv = this.inv;
+        int[] fill = this.fill;
+        Arrays.fill(invStart, 0, k * size + 1, 0);
+        for (int s = 0; s < size; s++) {
+            for (int a = 0; a < k; a++) {
+                invStart[a * size + trans[s * k + a] + 1]++;
+            }
+        }
+        for (int i = 0; i < k * size; i++) {
+            invStart[i + 1] += invStart[i];
+        }
+        System.arraycopy(invStart, 0, fill, 0, k * size);
+        for (int s = 0; s < size; s++) {
+            for (int a = 0; a < k; a++) {
+                inv[fill[a * size + trans[s * k + a]]++] = s;
+            }
+        }
+
+        // Initial partition: non-final states first, then final states
+        elems = ensure(elems, size);
+        loc = ensure(loc, size);
+        block = ensure(block, size);
+        first = ensure(first, size);
+        end = ensure(end, size);
+        marked = ensure(marked, size);
+        int[] elems = this.elems;
+        int[] loc = this.loc;
+        int[] block = this.block;
+        int[] first = this.first;
+        int[] end = this.end;
+        int[] marked = this.marked;
+        Arrays.fill(marked, 0, size, 0);
+        int nFinal = 0;
+        for (int s = 0; s < n; s++) {
+            if (dfa.isFinal(order[s])) {
+                nFinal++;
+            }
+        }
+        int lo = 0;
+        int hi = size - nFinal;
+        for (int s = 0; s < size; s++) {
+            boolean isFinal = s < n && dfa.isFinal(order[s]);
+            int pos = isFinal ? hi++ : lo++;
+            elems[pos] = s;
+            loc[s] = pos;
+            block[s] = isFinal && nFinal < size ? 1 : 0;
+        }
+        int nBlocks = 0;
+        if (nFinal < size) {
+            first[nBlocks] = 0;
+            end[nBlocks++] = size - nFinal;
+        }
+        if (nFinal > 0) {
+            first[nBlocks] = size - nFinal;
+            end[nBlocks++] = size;
+        }
+
+        // Splitter worklist of (block, symbol) pairs
+        if (inWork.length < size * k) {
+            inWork = new boolean[Math.max(size * k, 2 * inWork.length)];
+        }
+        work = ensure(work, size * k);
+        splitter = ensure(splitter, size);
+        touched = ensure(touched, size);
+        boolean[] inWork = this.inWork;
+        int[] work = this.work;
+        int[] splitter = this.splitter;
+        int[] touched = this.touched;
+        Arrays.fill(inWork, 0, size * k, false);
+        int nWork = 0;
+        int smaller = nBlocks == 2 && nFinal < size - nFinal ? 1 : 0;
+        for (int a = 0; a < k; a++) {
+            inWork[smaller * k + a] = true;
+            work[nWork++] = smaller * k + a;
+        }
+
+        int initialBlocks = nBlocks;
+        long nSplitters = 0;
+        while (nWork > 0) {
+            nSplitters++;
+            int w = work[--nWork];
+            inWork[w] = false;
+            int c = w / k;
+            int a = w % k;
+
+            // Copy the splitter since marking may reorder it
+            int len = end[c] - first[c];
+            System.arraycopy(elems, first[c], splitter, 0, len);
+
+            // Mark every predecessor of the splitter on symbol a
+            int nTouched = 0;
+            for (int i = 0; i < len; i++) {
+                int t = splitter[i];
+                for (int j = invStart[a * size + t]; j < invStart[a * size + t + 1]; j++) {
+                    int s = inv[j];
+                    int b = block[s];
+                    int pos = first[b] + marked[b];
+                    if (loc[s] < pos) {
+                        continue;
+                    }
+                    if (marked[b] == 0) {
+                        touched[nTouched++] = b;
+                    }
+                    int other = elems[pos];
+                    elems[pos] = s;
+                    elems[loc[s]] = other;
+                    loc[other] = loc[s];
+                    loc[s] = pos;
+                    marked[b]++;
+                }
+            }
+
+            // Split the touched blocks, the marked part becomes a new block
+            for (int i = 0; i < nTouched; i++) {
+                int b = touched[i];
+                int m = marked[b];
+                marked[b] = 0;
+                if (m == end[b] - first[b]) {
+                    continue;
+                }
+                int nb = nBlocks++;
+                first[nb] = first[b];
+                end[nb] = first[b] + m;
+                first[b] = end[nb];
+                for (int j = first[nb]; j < end[nb]; j++) {
+                    block[elems[j]] = nb;
+                }
+                for (int d = 0; d < k; d++) {
+                    int pick;
+                    if (inWork[b * k + d]) {
+                        pick = nb;
+                    } else {
+                        pick = end[nb] - first[nb] <= end[b] - first[b] ? nb : b;
+                    }
+                    inWork[pick * k + d] = true;
+                    work[nWork++] = pick * k + d;
+                }
+            }
+        }
+
+        stats.addSplitters(nSplitters);
+        stats.addSplits(nBlocks - initialBlocks);
+        stats.blocks(nBlocks);
+
+        // Merge states in the same block, dropping the sink block
+        int sinkBlock = block[sink] != block[0] ? block[sink] : -1;
+        newId = ensure(newId, nBlocks);
+        int[] newId = this.newId;
+        int m = 0;
+        for (int b = 0; b < nBlocks; b++) {
+            newId[b] = b == sinkBlock ? -1 : m++;
+        }
+        out.reset(m, symbolSet);
+        out.initialState = newId[block[0]];
+        for (int b = 0; b < nBlocks; b++) {
+            if (b == sinkBlock) {
+                continue;
+            }
+            int s = elems[first[b]];
+            out.finalStates[newId[b]] = s < n && dfa.isFinal(order[s]);
+            for (int a = 0; a < k; a++) {
+                int to = block[trans[s * k + a]];
+                out.delta[newId[b] * k + a] = to == sinkBlock || trans[s * k + a] == sink ? -1 : newId[to];
+            }
+        }
+    }
+
+    /**
+     * @return A DFA of its own, for one-off minimizations.
+     */
+    public DFA minimize(Automaton dfa) {
+        DFABuffer out = new DFABuffer();
+        minimize(dfa, out);
+        return out.toDFA();
+    }
+
+    // Arrays grow at least twice, so a session settles after a few large inputs
+    private static int[] ensure(int[] array, int length) {
+        return array.length >= length ? array : new int[Math.max(length, 2 * array.length)];
+    }
+}
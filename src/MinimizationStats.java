@@ -0,0 +1,200 @@
+/**
+ * @authors https://github.com/ravixr/dfa-minimization
+ */
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Timings and counters of the work that produced a DFA: one entry per phase (parsing,
+ * pruning, refinement, output...) with its wall time and the bytes allocated by the calling
+ * thread, plus the refinement statistics of the minimizer. Every phase is also emitted as a
+ * JFR event.
+ */
+class MinimizationStats {
+    private static final com.sun.management.ThreadMXBean THREADS = threadBean();
+
+    public static class Phase {
+        public final String name;
+        public long nanos;
+        public long allocatedBytes;
+        private final long start;
+        private final long startBytes;
+        private final PhaseEvent event;
+
+        private Phase(String name) {
+            this.name = name;
+            this.event = new PhaseEvent();
+            this.event.begin();
+            this.startBytes = allocatedBytes();
+            this.start = System.nanoTime();
+        }
+    }
+
+    private static final MinimizationStats DISABLED = new MinimizationStats(false);
+
+    public final List<Phase> phases;
+    // Rounds over the whole partition, splitters processed by Hopcroft and Valmari, blocks
+    // split, and the most blocks alive at once
+    private long rounds;
+    private long splitters;
+    private long splits;
+    private int peakBlocks;
+    // Pairs of states found distinguishable by the table filling algorithm
+    private long markedPairs;
+
+    // Disabled stats record no phase and keep no counter
+    private final boolean enabled;
+
+    public MinimizationStats() {
+        this(true);
+    }
+
+    private MinimizationStats(boolean enabled) {
+        this.enabled = enabled;
+        this.phases = enabled ? new ArrayList<>() : List.of();
+    }
+
+    /**
+     * @return Shared stats that record nothing, for callers that do not ask for them.
+     */
+    public static MinimizationStats disabled() {
+        return DISABLED;
+    }
+
+    public Phase begin(String name) {
+        return enabled ? new Phase(name) : null;
+    }
+
+    public void end(Phase phase) {
+        if (phase == null) {
+            return;
+        }
+        phase.nanos = System.nanoTime() - phase.start;
+        phase.allocatedBytes = Math.max(0, allocatedBytes() - phase.startBytes);
+        phases.add(phase);
+        PhaseEvent event = phase.event;
+        if (event.shouldCommit()) {
+            event.phase = phase.name;
+            event.allocated = phase.allocatedBytes;
+            event.rounds = rounds;
+            event.splitters = splitters;
+            event.splits = splits;
+            event.peakBlocks = peakBlocks;
+            event.commit();
+        }
+    }
+
+    public void addRounds(long count) {
+        if (enabled) {
+            rounds += count;
+        }
+    }
+
+    public void addSplitters(long count) {
+        if (enabled) {
+            splitters += count;
+        }
+    }
+
+    public void addSplits(long count) {
+        if (enabled) {
+            splits += count;
+        }
+    }
+
+    public void addMarkedPairs(long count) {
+        if (enabled) {
+            markedPairs += count;
+        }
+    }
+
+    public void blocks(int count) {
+        if (enabled) {
+            peakBlocks = Math.max(peakBlocks, count);
+        }
+    }
+
+    public long rounds() {
+        return rounds;
+    }
+
+    public long splitters() {
+        return splitters;
+    }
+
+    public long splits() {
+        return splits;
+    }
+
+    public int peakBlocks() {
+        return peakBlocks;
+    }
+
+    public long markedPairs() {
+        return markedPairs;
+    }
+
+    /**
+     * @return The statistics as a single line of JSON.
+     */
+    public String toJSON() {
+        StringBuilder json = new StringBuilder("{\"phases\":[");
+        for (int i = 0; i < phases.size(); i++) {
+            Phase phase = phases.get(i);
+            json.append(i == 0 ? "" : ",").append("{\"name\":\"").append(phase.name)
+                    .append("\",\"ms\":").append(String.format(Locale.ROOT, "%.3f", phase.nanos / 1e6))
+                    .append(",\"allocatedBytes\":").append(phase.allocatedBytes).append('}');
+        }
+        json.append("],\"rounds\":").append(rounds).append(",\"splitters\":").append(splitters)
+                .append(",\"splits\":").append(splits)
+                .append(",\"peakBlocks\":").append(peakBlocks).append(",\"markedPairs\":").append(markedPairs)
+                .append('}');
+        return json.toString();
+    }
+
+    private static long allocatedBytes() {
+        return THREADS == null ? 0 : THREADS.getThreadAllocatedBytes(Thread.currentThread().threadId());
+    }
+
+    private static com.sun.management.ThreadMXBean threadBean() {
+        if (ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean bean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            if (bean.isThreadAllocatedMemorySupported() && bean.isThreadAllocatedMemoryEnabled()) {
+                return bean;
+            }
+        }
+        return null;
+    }
+}
+
+@Name("dfa.Phase")
+@Label("DFA Phase")
+@Category("DFA Minimization")
+class PhaseEvent extends Event {
+    @Label("Phase")
+    String phase;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocated;
+
+    @Label("Rounds")
+    long rounds;
+
+    @Label("Splitters")
+    long splitters;
+
+    @Label("Splits")
+    long splits;
+
+    @Label("Peak Blocks")
+    int peakBlocks;
+}
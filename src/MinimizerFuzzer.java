@@ -0,0 +1,629 @@
+/**
+ * @authors https://github.com/ravixr/dfa-minimization
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.SplittableRandom;
+import java.util.function.UnaryOperator;
+
+/**
+ * Differential fuzzer for the minimizers. Every case is a seeded DFA from one of the generators,
+ * possibly made partial, given unreachable states or renumbered, and is minimized by every method,
+ * including through k-equivalence, ranges, products and subset construction. A result fails if it
+ * is malformed, accepts another language than the input, or has more states than the smallest
+ * correct result. Failing cases are shrunk and saved as JFLAP files, and the time and allocation of
+ * every method are summed over the run.
+ */
+class MinimizerFuzzer {
+
+    private static class Minimizer {
+        final String name;
+        // Larger inputs are skipped, for the quadratic and exponential methods
+        final int maxStates;
+        final UnaryOperator<DFA> run;
+        int runs;
+        int failures;
+        long nanos;
+        long maxNanos;
+        long allocatedBytes;
+
+        Minimizer(String name, int maxStates, UnaryOperator<DFA> run) {
+            this.name = name;
+            this.maxStates = maxStates;
+            this.run = run;
+        }
+    }
+
+    private final List<Minimizer> minimizers = new ArrayList<>();
+    private final MinimizationStats stats = new MinimizationStats();
+    private int cases;
+    private int failedCases;
+
+    MinimizerFuzzer(int threads) {
+        minimizers.add(new Minimizer("std", 2000, DFA::stdMinimization));
+        minimizers.add(new Minimizer("std2", 2000, DFA::stdMinimization2));
+        minimizers.add(new Minimizer("hopcroft", Integer.MAX_VALUE, d -> d.hopcroftMinimization()));
+        minimizers.add(new Minimizer("valmari", Integer.MAX_VALUE, DFA::valmariMinimization));
+        minimizers.add(new Minimizer("parallel", Integer.MAX_VALUE, d -> d.parallelMinimization(threads)));
+        minimizers.add(new Minimizer("brzozowski", 24, d -> NFA.of(d).brzozowskiMinimization()));
+        minimizers.add(new Minimizer("signature", Integer.MAX_VALUE, DFA::signatureMinimization));
+        minimizers.add(new Minimizer("offheap", Integer.MAX_VALUE,
+                d -> toDFA(OffHeapDFA.copyOf(d, null).hopcroftMinimization())));
+        minimizers.add(new Minimizer("mapped", Integer.MAX_VALUE, MinimizerFuzzer::mapped));
+        minimizers.add(new Minimizer("incremental", Integer.MAX_VALUE, MinimizerFuzzer::incremental));
+        minimizers.add(new Minimizer("kequivalence", 300, MinimizerFuzzer::kEquivalence));
+        minimizers.add(new Minimizer("ranges", Integer.MAX_VALUE, MinimizerFuzzer::ranges));
+        minimizers.add(new Minimizer("product", Integer.MAX_VALUE, MinimizerFuzzer::product));
+        minimizers.add(new Minimizer("subset", Integer.MAX_VALUE, d -> nondeterministic(d).hopcroftMinimization()));
+        // One session for the whole run, so its arrays are reused by cases of other sizes
+        MinimizationSession session = new MinimizationSession();
+        DFABuffer buffer = new DFABuffer();
+        minimizers.add(new Minimizer("session", Integer.MAX_VALUE, d -> {
+            session.minimize(d, buffer);
+            return buffer.toDFA();
+        }));
+    }
+
+    // Usage: java MinimizerFuzzer [--json] [iterations] [max_states] [seed] [threads]
+    public static void main(String[] args) {
+        List<String> rest = new ArrayList<>(Arrays.asList(args));
+        boolean json = rest.remove("--json");
+        int iterations = rest.size() > 0 ? Integer.parseInt(rest.get(0)) : 1000;
+        int maxStates = rest.size() > 1 ? Integer.parseInt(rest.get(1)) : 2000;
+        long seed = rest.size() > 2 ? Long.parseLong(rest.get(2)) : System.nanoTime();
+        int threads = rest.size() > 3 ? Integer.parseInt(rest.get(3)) : Runtime.getRuntime().availableProcessors();
+
+        MinimizerFuzzer fuzzer = new MinimizerFuzzer(threads);
+        SplittableRandom random = new SplittableRandom(seed);
+        for (int i = 0; i < iterations; i++) {
+            fuzzer.run(random.nextLong(), maxStates);
+        }
+        if (json) {
+            System.out.println(fuzzer.toJSON(seed));
+        } else {
+            fuzzer.printSummary(seed);
+        }
+        if (fuzzer.failedCases > 0) {
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Generates the case of the given seed, so a failure can be replayed from its seed alone.
+     */
+    public static DFA generate(long seed, int maxStates) {
+        SplittableRandom r = new SplittableRandom(seed);
+        // Sizes are spread evenly over the orders of magnitude
+        int n = Math.max(1, (int) Math.exp(r.nextDouble() * Math.log(maxStates)));
+        List<String> symbolSet = Arrays.asList("a", "b", "c", "d").subList(0, 1 + r.nextInt(4));
+        double density = new double[] {0.05, 0.3, 0.7}[r.nextInt(3)];
+        DFA dfa;
+        switch (r.nextInt(4)) {
+            case 0:
+                dfa = DFA.generateDFA(n, symbolSet, r.nextLong(), density, 0);
+                break;
+            case 1:
+                dfa = DFA.generateDFA(n, symbolSet, r.nextLong(), density, 1 + r.nextInt(Math.max(1, n / 4)));
+                break;
+            case 2:
+                dfa = DFA.generateBinMultN(n);
+                break;
+            default:
+                dfa = DFA.generateDoubleStateTest(Math.max(2, n));
+                break;
+        }
+        int k = dfa.symbolSet.size();
+        if (r.nextInt(3) == 0) {
+            // Partial: missing transitions go to an implicit sink
+            double p = r.nextDouble() * 0.5;
+            for (int i = 0; i < dfa.delta.length; i++) {
+                if (r.nextDouble() < p) {
+                    dfa.delta[i] = -1;
+                }
+            }
+        }
+        if (r.nextInt(8) == 0) {
+            Arrays.fill(dfa.finalStates, r.nextBoolean());
+        }
+        if (r.nextInt(4) == 0) {
+            // Unreachable states, which may lead back into the reachable part
+            int extra = 1 + r.nextInt(Math.max(1, dfa.nStates / 4));
+            DFA bigger = new DFA(dfa.nStates + extra, dfa.symbolSet, dfa.initialState,
+                    Arrays.copyOf(dfa.finalStates, dfa.nStates + extra));
+            System.arraycopy(dfa.delta, 0, bigger.delta, 0, dfa.delta.length);
+            for (int s = dfa.nStates; s < bigger.nStates; s++) {
+                bigger.finalStates[s] = r.nextBoolean();
+                for (int a = 0; a < k; a++) {
+                    bigger.delta[s * k + a] = r.nextInt(bigger.nStates + 1) - 1;
+                }
+            }
+            dfa = bigger;
+        }
+        if (r.nextBoolean()) {
+            int[] perm = new int[dfa.nStates];
+            for (int s = 0; s < perm.length; s++) {
+                int j = r.nextInt(s + 1);
+                perm[s] = perm[j];
+                perm[j] = s;
+            }
+            dfa = renumber(dfa, perm);
+        }
+        return dfa;
+    }
+
+    /**
+     * Minimizes the case with every method and checks the results against each other.
+     *
+     * @return True if every result is correct.
+     */
+    public boolean run(long seed, int maxStates) {
+        DFA dfa = generate(seed, maxStates);
+        cases++;
+        DFA[] results = new DFA[minimizers.size()];
+        String[] errors = new String[minimizers.size()];
+        for (int i = 0; i < minimizers.size(); i++) {
+            Minimizer minimizer = minimizers.get(i);
+            if (dfa.nStates > minimizer.maxStates) {
+                continue;
+            }
+            MinimizationStats.Phase phase = stats.begin(minimizer.name);
+            try {
+                results[i] = minimizer.run.apply(dfa.clone());
+            } catch (RuntimeException e) {
+                errors[i] = e.toString();
+            }
+            stats.end(phase);
+            minimizer.runs++;
+            minimizer.nanos += phase.nanos;
+            minimizer.maxNanos = Math.max(minimizer.maxNanos, phase.nanos);
+            minimizer.allocatedBytes += phase.allocatedBytes;
+            if (errors[i] == null) {
+                errors[i] = check(dfa, results[i], Integer.MAX_VALUE);
+            }
+        }
+        stats.phases.clear();
+
+        // The smallest correct result is the expected size
+        int expected = Integer.MAX_VALUE;
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] != null && errors[i] == null) {
+                expected = Math.min(expected, results[i].nStates);
+            }
+        }
+        boolean ok = true;
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] != null && errors[i] == null && results[i].nStates > expected) {
+                errors[i] = results[i].nStates + " states instead of " + expected;
+            }
+            if (errors[i] != null) {
+                ok = false;
+                Minimizer minimizer = minimizers.get(i);
+                minimizer.failures++;
+                report(seed, dfa, minimizer, errors[i]);
+            }
+        }
+        if (!ok) {
+            failedCases++;
+        }
+        return ok;
+    }
+
+    /**
+     * @param expected Number of states of the minimal DFA, or Integer.MAX_VALUE to skip the check.
+     * @return What is wrong with the result, or null if it is correct.
+     */
+    private static String check(DFA dfa, DFA min, int expected) {
+        int k = min.symbolSet.size();
+        if (min.finalStates.length != min.nStates || min.delta.length != min.nStates * k) {
+            return "malformed result: " + min.nStates + " states, " + min.finalStates.length + " final flags, "
+                    + min.delta.length + " transitions";
+        }
+        if (min.nStates > 0 && (min.initialState < 0 || min.initialState >= min.nStates)) {
+            return "initial state " + min.initialState + " out of range";
+        }
+        for (int to : min.delta) {
+            if (to < -1 || to >= min.nStates) {
+                return "transition to " + to + " out of range";
+            }
+        }
+        List<String> word = dfa.counterexample(min);
+        if (word != null) {
+            return "language differs on " + word;
+        }
+        if (min.nStates > expected) {
+            return min.nStates + " states instead of " + expected;
+        }
+        return null;
+    }
+
+    // Error of the minimizer on the DFA, against the size given by the linear-time methods
+    private static String failure(Minimizer minimizer, DFA dfa) {
+        int expected = Integer.MAX_VALUE;
+        for (UnaryOperator<DFA> reference : List.<UnaryOperator<DFA>>of(
+                d -> d.hopcroftMinimization(), DFA::valmariMinimization, DFA::signatureMinimization)) {
+            try {
+                DFA min = reference.apply(dfa.clone());
+                if (check(dfa, min, Integer.MAX_VALUE) == null) {
+                    expected = Math.min(expected, min.nStates);
+                }
+            } catch (RuntimeException e) {
+                // A failing reference gives no size
+            }
+        }
+        try {
+            return check(dfa, minimizer.run.apply(dfa.clone()), expected);
+        } catch (RuntimeException e) {
+            return e.toString();
+        }
+    }
+
+    private void report(long seed, DFA dfa, Minimizer minimizer, String error) {
+        DFA small = shrink(dfa, minimizer);
+        Path file = Paths.get(String.format(Locale.ROOT, "fuzz-%s-%016x.jff", minimizer.name, seed));
+        System.out.printf(Locale.ROOT, "FAILED %s on case %016x (%d states, shrunk to %d): %s%n", minimizer.name,
+                seed, dfa.nStates, small.nStates, failure(minimizer, small));
+        try {
+            small.writeJFLAPXML(file);
+            System.out.println("  saved to " + file);
+        } catch (Exception e) {
+            System.out.println("  could not save " + file + ": " + e);
+        }
+    }
+
+    /**
+     * Removes states, transitions, final states and symbols while the minimizer still fails,
+     * until no single removal keeps it failing.
+     */
+    static DFA shrink(DFA dfa, Minimizer minimizer) {
+        boolean progress = true;
+        int attempts = 0;
+        while (progress && attempts < 20000) {
+            progress = false;
+            for (int s = dfa.nStates - 1; s >= 0 && !progress; s--) {
+                if (s != dfa.initialState && dfa.nStates > 1) {
+                    attempts++;
+                    DFA candidate = removeState(dfa, s);
+                    if (failure(minimizer, candidate) != null) {
+                        dfa = candidate;
+                        progress = true;
+                    }
+                }
+            }
+            for (int a = dfa.symbolSet.size() - 1; a >= 0 && !progress && dfa.symbolSet.size() > 1; a--) {
+                attempts++;
+                DFA candidate = removeSymbol(dfa, a);
+                if (failure(minimizer, candidate) != null) {
+                    dfa = candidate;
+                    progress = true;
+                }
+            }
+            for (int i = 0; i < dfa.delta.length && !progress; i++) {
+                if (dfa.delta[i] != -1) {
+                    attempts++;
+                    DFA candidate = dfa.clone();
+                    candidate.delta[i] = -1;
+                    if (failure(minimizer, candidate) != null) {
+                        dfa = candidate;
+                        progress = true;
+                    }
+                }
+            }
+            for (int s = 0; s < dfa.nStates && !progress; s++) {
+                if (dfa.finalStates[s]) {
+                    attempts++;
+                    DFA candidate = dfa.clone();
+                    candidate.finalStates[s] = false;
+                    if (failure(minimizer, candidate) != null) {
+                        dfa = candidate;
+                        progress = true;
+                    }
+                }
+            }
+        }
+        return dfa;
+    }
+
+    // The transitions into the removed state become missing
+    private static DFA removeState(DFA dfa, int removed) {
+        int k = dfa.symbolSet.size();
+        DFA result = new DFA(dfa.nStates - 1, dfa.symbolSet);
+        result.initialState = dfa.initialState > removed ? dfa.initialState - 1 : dfa.initialState;
+        for (int s = 0; s < dfa.nStates; s++) {
+            if (s == removed) {
+                continue;
+            }
+            int from = s > removed ? s - 1 : s;
+            result.finalStates[from] = dfa.finalStates[s];
+            for (int a = 0; a < k; a++) {
+                int to = dfa.next(s, a);
+                result.delta[from * k + a] = to == -1 || to == removed ? -1 : to > removed ? to - 1 : to;
+            }
+        }
+        return result;
+    }
+
+    private static DFA removeSymbol(DFA dfa, int removed) {
+        int k = dfa.symbolSet.size();
+        List<String> symbolSet = new ArrayList<>(dfa.symbolSet);
+        symbolSet.remove(removed);
+        DFA result = new DFA(dfa.nStates, symbolSet, dfa.initialState, dfa.finalStates.clone());
+        for (int s = 0; s < dfa.nStates; s++) {
+            for (int a = 0, b = 0; a < k; a++) {
+                if (a != removed) {
+                    result.delta[s * (k - 1) + b++] = dfa.next(s, a);
+                }
+            }
+        }
+        return result;
+    }
+
+    // State s becomes perm[s]
+    private static DFA renumber(DFA dfa, int[] perm) {
+        int k = dfa.symbolSet.size();
+        DFA result = new DFA(dfa.nStates, dfa.symbolSet);
+        result.initialState = perm[dfa.initialState];
+        for (int s = 0; s < dfa.nStates; s++) {
+            result.finalStates[perm[s]] = dfa.finalStates[s];
+            for (int a = 0; a < k; a++) {
+                int to = dfa.next(s, a);
+                result.delta[perm[s] * k + a] = to == -1 ? -1 : perm[to];
+            }
+        }
+        return result;
+    }
+
+    private static DFA toDFA(Automaton automaton) {
+        int k = automaton.symbolSet().size();
+        DFA dfa = new DFA(automaton.nStates(), new ArrayList<>(automaton.symbolSet()));
+        dfa.initialState = automaton.initialState();
+        for (int s = 0; s < dfa.nStates; s++) {
+            dfa.finalStates[s] = automaton.isFinal(s);
+            for (int a = 0; a < k; a++) {
+                dfa.delta[s * k + a] = automaton.next(s, a);
+            }
+        }
+        return dfa;
+    }
+
+    // Round trip through the binary format: the file is memory-mapped, then fingerprinted and
+    // minimized in place like binary inputs to method 3
+    private static DFA mapped(DFA dfa) {
+        try {
+            Path file = Files.createTempFile("fuzz", BinaryDFA.EXTENSION);
+            try {
+                BinaryDFA.write(dfa, file);
+                MappedDFA mapped = BinaryDFA.map(file);
+                if (!Fingerprint.of(mapped).equals(dfa.fingerprint())) {
+                    throw new IllegalStateException("mapped file has another fingerprint");
+                }
+                return DFA.hopcroftMinimization(mapped);
+            } finally {
+                try {
+                    Files.delete(file);
+                } catch (IOException e) {
+                    // Windows cannot delete a file while it is mapped
+                    file.toFile().deleteOnExit();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // Makes random edits to the transitions and final states, then undoes them in reverse order.
+    // After every update the quotient is checked against a minimization from scratch of the
+    // edited DFA, so the result is only the quotient of the original once every edit is undone.
+    private static DFA incremental(DFA dfa) {
+        IncrementalMinimizer inc = new IncrementalMinimizer(dfa);
+        int n = dfa.nStates;
+        int k = dfa.symbolSet.size();
+        SplittableRandom r = new SplittableRandom(n * 31L + k);
+        // Edits as {state, symbol, previous target}, symbol -1 for a flip of the final flag
+        int[][] edits = new int[Math.min(16, n * k)][];
+        for (int i = 0; i < edits.length; i++) {
+            int s = r.nextInt(n);
+            int choice = r.nextInt(3);
+            if (choice == 0) {
+                edits[i] = new int[] {s, -1, 0};
+                inc.setFinal(s, !inc.dfa().finalStates[s]);
+            } else {
+                int a = r.nextInt(k);
+                edits[i] = new int[] {s, a, inc.dfa().next(s, a)};
+                // Remove the transition, or retarget it to a random state
+                setTransition(inc, s, a, choice == 1 ? -1 : r.nextInt(n));
+            }
+            checkIncremental(inc, "edit " + (i + 1));
+        }
+        for (int i = edits.length - 1; i >= 0; i--) {
+            int s = edits[i][0];
+            int a = edits[i][1];
+            if (a == -1) {
+                inc.setFinal(s, !inc.dfa().finalStates[s]);
+            } else {
+                setTransition(inc, s, a, edits[i][2]);
+            }
+            checkIncremental(inc, "undo of edit " + (i + 1));
+        }
+        return inc.minimized();
+    }
+
+    private static void setTransition(IncrementalMinimizer inc, int from, int a, int to) {
+        String symbol = inc.dfa().symbolSet.get(a);
+        inc.removeTransition(from, symbol);
+        if (to != -1) {
+            inc.addTransition(from, to, symbol);
+        }
+    }
+
+    private static void checkIncremental(IncrementalMinimizer inc, String step) {
+        inc.update();
+        DFA min = inc.minimized();
+        DFA expected = inc.dfa().clone().hopcroftMinimization();
+        List<String> word = expected.counterexample(min);
+        if (word != null) {
+            throw new IllegalStateException("after " + step + ", language differs on " + word);
+        }
+        if (min.nStates != expected.nStates) {
+            throw new IllegalStateException("after " + step + ", " + min.nStates + " states instead of "
+                    + expected.nStates);
+        }
+    }
+
+    // Quotient of the useful states by the full equivalence of kEquivalence, after checking the
+    // partitions of a few rounds against k-equivalence computed pair by pair
+    private static DFA kEquivalence(DFA dfa) {
+        for (int rounds = 0; rounds <= 3; rounds++) {
+            int[] partition = dfa.kEquivalence(rounds);
+            boolean[][] equivalent = kEquivalentPairs(dfa, rounds);
+            for (int p = 0; p < dfa.nStates; p++) {
+                for (int q = 0; q < p; q++) {
+                    if ((partition[p] == partition[q]) != equivalent[p][q]) {
+                        throw new IllegalStateException("states " + p + " and " + q + " are "
+                                + (equivalent[p][q] ? "" : "not ") + rounds + "-equivalent");
+                    }
+                }
+            }
+        }
+        DFA trimmed = dfa.withoutUselessStates();
+        int[] partition = trimmed.kEquivalence(trimmed.nStates);
+        int k = trimmed.symbolSet.size();
+        int nBlocks = 0;
+        for (int block : partition) {
+            nBlocks = Math.max(nBlocks, block + 1);
+        }
+        DFA quotient = new DFA(nBlocks, trimmed.symbolSet);
+        quotient.initialState = partition[trimmed.initialState];
+        for (int s = 0; s < trimmed.nStates; s++) {
+            quotient.finalStates[partition[s]] = trimmed.finalStates[s];
+            for (int a = 0; a < k; a++) {
+                int to = trimmed.next(s, a);
+                quotient.delta[partition[s] * k + a] = to == -1 ? -1 : partition[to];
+            }
+        }
+        return quotient;
+    }
+
+    // equivalent[p][q] for q < p, with missing transitions going to a non-final sink
+    private static boolean[][] kEquivalentPairs(DFA dfa, int rounds) {
+        int n = dfa.nStates;
+        int k = dfa.symbolSet.size();
+        boolean[][] equivalent = new boolean[n + 1][];
+        for (int p = 0; p <= n; p++) {
+            equivalent[p] = new boolean[p];
+            for (int q = 0; q < p; q++) {
+                equivalent[p][q] = (p < n && dfa.finalStates[p]) == (q < n && dfa.finalStates[q]);
+            }
+        }
+        for (int round = 0; round < rounds; round++) {
+            boolean[][] next = new boolean[n + 1][];
+            for (int p = 0; p <= n; p++) {
+                next[p] = new boolean[p];
+                for (int q = 0; q < p; q++) {
+                    boolean same = equivalent[p][q];
+                    for (int a = 0; a < k && same; a++) {
+                        int pa = p == n || dfa.next(p, a) == -1 ? n : dfa.next(p, a);
+                        int qa = q == n || dfa.next(q, a) == -1 ? n : dfa.next(q, a);
+                        same = pa == qa || (pa > qa ? equivalent[pa][qa] : equivalent[qa][pa]);
+                    }
+                    next[p][q] = same;
+                }
+            }
+            equivalent = next;
+        }
+        return equivalent;
+    }
+
+    // The symbols of the generated cases are single letters, so they are read as code points
+    private static DFA ranges(DFA dfa) {
+        RangeDFA min = RangeDFA.of(dfa).hopcroftMinimization();
+        int k = dfa.symbolSet.size();
+        DFA result = new DFA(min.nStates, dfa.symbolSet);
+        result.initialState = min.initialState;
+        for (int s = 0; s < min.nStates; s++) {
+            result.finalStates[s] = min.finalStates[s];
+            for (int a = 0; a < k; a++) {
+                result.delta[s * k + a] = min.next(s, dfa.symbolSet.get(a).codePointAt(0));
+            }
+        }
+        return result;
+    }
+
+    // Products with a small random DFA e that give back the language of the case, through
+    // (d | e) - (e - d) or (d & e) ^ (d - e)
+    private static DFA product(DFA dfa) {
+        SplittableRandom r = new SplittableRandom(dfa.nStates * 17L + dfa.symbolSet.size());
+        DFA e = DFA.generateDFA(1 + r.nextInt(8), dfa.symbolSet, r.nextLong(), 0.5, 0);
+        if (r.nextBoolean()) {
+            return ProductDFA.minimize(ProductDFA.minimize(dfa, e, ProductDFA.Operation.UNION),
+                    ProductDFA.minimize(e, dfa, ProductDFA.Operation.DIFFERENCE), ProductDFA.Operation.DIFFERENCE);
+        }
+        return ProductDFA.minimize(ProductDFA.minimize(dfa, e, ProductDFA.Operation.INTERSECTION),
+                ProductDFA.minimize(dfa, e, ProductDFA.Operation.DIFFERENCE),
+                ProductDFA.Operation.SYMMETRIC_DIFFERENCE);
+    }
+
+    // NFA with the states of the DFA twice: state s also has an empty move to its copy n + s,
+    // and each of its transitions also leads to the copy of the target
+    private static NFA nondeterministic(DFA dfa) {
+        int n = dfa.nStates;
+        int k = dfa.symbolSet.size();
+        int[] from = new int[n + 3 * n * k];
+        int[] symbol = new int[from.length];
+        int[] to = new int[from.length];
+        int nEdges = 0;
+        for (int s = 0; s < n; s++) {
+            from[nEdges] = s;
+            symbol[nEdges] = -1;
+            to[nEdges++] = n + s;
+            for (int a = 0; a < k; a++) {
+                int t = dfa.next(s, a);
+                if (t != -1) {
+                    int[] edges = {s, t, s, n + t, n + s, n + t};
+                    for (int i = 0; i < edges.length; i += 2) {
+                        from[nEdges] = edges[i];
+                        symbol[nEdges] = a;
+                        to[nEdges++] = edges[i + 1];
+                    }
+                }
+            }
+        }
+        boolean[] finals = Arrays.copyOf(dfa.finalStates, 2 * n);
+        System.arraycopy(dfa.finalStates, 0, finals, n, n);
+        return new NFA(2 * n, new ArrayList<>(dfa.symbolSet), dfa.initialState, finals, from, symbol, to, nEdges);
+    }
+
+    private void printSummary(long seed) {
+        System.out.printf(Locale.ROOT, "%d cases (seed %d), %d failed%n", cases, seed, failedCases);
+        System.out.printf(Locale.ROOT, "%-12s %6s %8s %10s %10s %10s %12s%n", "method", "runs", "failures",
+                "total ms", "mean ms", "max ms", "allocated MB");
+        for (Minimizer m : minimizers) {
+            System.out.printf(Locale.ROOT, "%-12s %6d %8d %10.1f %10.3f %10.3f %12.1f%n", m.name, m.runs, m.failures,
+                    m.nanos / 1e6, m.runs == 0 ? 0 : m.nanos / 1e6 / m.runs, m.maxNanos / 1e6, m.allocatedBytes / 1e6);
+        }
+    }
+
+    /**
+     * @return The summary as a single line of JSON, for tracking runs over time.
+     */
+    private String toJSON(long seed) {
+        StringBuilder json = new StringBuilder("{\"seed\":").append(seed).append(",\"cases\":").append(cases)
+                .append(",\"failed\":").append(failedCases).append(",\"methods\":[");
+        for (int i = 0; i < minimizers.size(); i++) {
+            Minimizer m = minimizers.get(i);
+            json.append(i == 0 ? "" : ",").append("{\"name\":\"").append(m.name).append("\",\"runs\":").append(m.runs)
+                    .append(",\"failures\":").append(m.failures)
+                    .append(",\"ms\":").append(String.format(Locale.ROOT, "%.3f", m.nanos / 1e6))
+                    .append(",\"maxMs\":").append(String.format(Locale.ROOT, "%.3f", m.maxNanos / 1e6))
+                    .append(",\"allocatedBytes\":").append(m.allocatedBytes).append('}');
+        }
+        return json.append("]}").toString();
+    }
+}
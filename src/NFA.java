@@ -0,0 +1,506 @@
+/**
+ * @authors https://github.com/ravixr/dfa-minimization
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+
+// Nondeterministic Finite Automaton with empty moves
+class NFA {
+    public final int nStates;
+    public final List<String> symbolSet;
+    public final int initialState;
+    public final boolean[] finalStates;
+    // The edges of state s are [edgeStart[s], edgeStart[s + 1]), symbol -1 is an empty move
+    final int[] edgeStart;
+    final int[] edgeSymbol;
+    final int[] edgeTarget;
+
+    // The first nEdges entries of from, symbol and to are the edges, in any order
+    NFA(int nStates, List<String> symbolSet, int initialState, boolean[] finalStates,
+            int[] from, int[] symbol, int[] to, int nEdges) {
+        this.nStates = nStates;
+        this.symbolSet = symbolSet;
+        this.initialState = initialState;
+        this.finalStates = finalStates;
+        edgeStart = new int[nStates + 1];
+        for (int e = 0; e < nEdges; e++) {
+            edgeStart[from[e] + 1]++;
+        }
+        for (int s = 0; s < nStates; s++) {
+            edgeStart[s + 1] += edgeStart[s];
+        }
+        edgeSymbol = new int[nEdges];
+        edgeTarget = new int[nEdges];
+        int[] fill = Arrays.copyOf(edgeStart, nStates);
+        for (int e = 0; e < nEdges; e++) {
+            int i = fill[from[e]]++;
+            edgeSymbol[i] = symbol[e];
+            edgeTarget[i] = to[e];
+        }
+    }
+
+    public static NFA of(DFA dfa) {
+        int k = dfa.symbolSet.size();
+        int[] from = new int[dfa.nStates * k];
+        int[] symbol = new int[dfa.nStates * k];
+        int[] to = new int[dfa.nStates * k];
+        int nEdges = 0;
+        for (int s = 0; s < dfa.nStates; s++) {
+            for (int a = 0; a < k; a++) {
+                if (dfa.next(s, a) != -1) {
+                    from[nEdges] = s;
+                    symbol[nEdges] = a;
+                    to[nEdges++] = dfa.next(s, a);
+                }
+            }
+        }
+        return new NFA(dfa.nStates, new ArrayList<>(dfa.symbolSet), dfa.initialState, dfa.finalStates.clone(),
+                from, symbol, to, nEdges);
+    }
+
+    public int nEdges() {
+        return edgeTarget.length;
+    }
+
+    // True if there are no empty moves and no state has two edges on the same symbol
+    public boolean isDeterministic() {
+        int k = symbolSet.size();
+        int[] seen = new int[k];
+        Arrays.fill(seen, -1);
+        for (int s = 0; s < nStates; s++) {
+            for (int e = edgeStart[s]; e < edgeStart[s + 1]; e++) {
+                int a = edgeSymbol[e];
+                if (a == -1 || seen[a] == s) {
+                    return false;
+                }
+                seen[a] = s;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * A new initial state has empty moves to the old final states, and the old initial state
+     * is the only final one.
+     *
+     * @return An NFA accepting the reversed words.
+     */
+    public NFA reverse() {
+        int n = nEdges();
+        int nFinals = 0;
+        for (int s = 0; s < nStates; s++) {
+            nFinals += finalStates[s] ? 1 : 0;
+        }
+        int[] from = new int[n + nFinals];
+        int[] symbol = new int[n + nFinals];
+        int[] to = new int[n + nFinals];
+        int nEdges = 0;
+        for (int s = 0; s < nStates; s++) {
+            for (int e = edgeStart[s]; e < edgeStart[s + 1]; e++) {
+                from[nEdges] = edgeTarget[e];
+                symbol[nEdges] = edgeSymbol[e];
+                to[nEdges++] = s;
+            }
+            if (finalStates[s]) {
+                from[nEdges] = nStates;
+                symbol[nEdges] = -1;
+                to[nEdges++] = s;
+            }
+        }
+        boolean[] finals = new boolean[nStates + 1];
+        if (nStates > 0) {
+            finals[initialState] = true;
+        }
+        return new NFA(nStates + 1, symbolSet, nStates, finals, from, symbol, to, nEdges);
+    }
+
+    /**
+     * Subset construction from the closure of the initial state. The sets are built in a
+     * bitset, then interned as sorted member lists in an open-addressed index, so a set is
+     * stored once however many transitions lead to it. The empty set is left out as missing
+     * transitions.
+     *
+     * @return A DFA whose states are the reachable sets of states.
+     */
+    public DFA determinize() {
+        return determinize(MinimizationStats.disabled());
+    }
+
+    /**
+     * Like determinize(), recording the subset construction as a phase of stats.
+     */
+    public DFA determinize(MinimizationStats stats) {
+        MinimizationStats.Phase phase = stats.begin("subset");
+        DFA dfa = new SubsetConstruction(this).run(initialState);
+        stats.blocks(dfa.nStates);
+        stats.end(phase);
+        return dfa;
+    }
+
+    /**
+     * The subset DFA is pruned and refined with Hopcroft's algorithm; the sets themselves are
+     * dropped before refinement starts.
+     *
+     * @return The minimal DFA of the language of the NFA.
+     */
+    public DFA hopcroftMinimization() {
+        return hopcroftMinimization(MinimizationStats.disabled());
+    }
+
+    /**
+     * Like hopcroftMinimization(), recording the phases and counters of the run in stats.
+     */
+    public DFA hopcroftMinimization(MinimizationStats stats) {
+        return determinize(stats).hopcroftMinimization(stats);
+    }
+
+    /**
+     * Minimizes with Brzozowski's algorithm, determinizing the reversed NFA twice. No
+     * intermediate subset DFA of the original NFA is built, but a subset construction can
+     * be exponential in the number of states.
+     *
+     * @return The minimal DFA of the language of the NFA.
+     */
+    public DFA brzozowskiMinimization() {
+        return brzozowskiMinimization(MinimizationStats.disabled());
+    }
+
+    /**
+     * Like brzozowskiMinimization(), recording each of the two subset constructions as a phase
+     * of stats.
+     */
+    public DFA brzozowskiMinimization(MinimizationStats stats) {
+        MinimizationStats.Phase phase = stats.begin("subset");
+        DFA reversed = determinizeReverse(this);
+        stats.blocks(reversed.nStates);
+        stats.end(phase);
+        phase = stats.begin("subset");
+        DFA min = determinizeReverse(NFA.of(reversed));
+        stats.blocks(min.nStates);
+        stats.end(phase);
+        return min;
+    }
+
+    /**
+     * Checks the language against a DFA with the union-find walk of DFA.counterexample, running
+     * the subset construction lazily: only the sets the walk reaches are interned, and their
+     * transitions are never stored. This verifies brzozowskiMinimization() without building
+     * the subset DFA, although the sets reached can still be exponentially many.
+     *
+     * @return A word accepted by exactly one of the automata, or null if they are equivalent.
+     */
+    public List<String> counterexample(DFA dfa) {
+        int k = symbolSet.size();
+        Map<String, Integer> index = new HashMap<>();
+        for (int a = 0; a < k; a++) {
+            index.putIfAbsent(symbolSet.get(a), a);
+        }
+        List<String> symbols = new ArrayList<>(symbolSet);
+        for (String symbol : dfa.symbolSet) {
+            if (!index.containsKey(symbol)) {
+                symbols.add(symbol);
+            }
+        }
+        int[] theirs = new int[symbols.size()];
+        for (int x = 0; x < symbols.size(); x++) {
+            theirs[x] = dfa.symbolId(symbols.get(x));
+        }
+
+        // Nodes are the states of the DFA, its sink, the empty set, then the sets in the order
+        // they are interned
+        SubsetConstruction sets = new SubsetConstruction(this);
+        int m = dfa.nStates;
+        int empty = m + 1;
+        int base = m + 2;
+        int[] left = new int[16];
+        int[] right = new int[16];
+        int[] from = new int[16];
+        int[] via = new int[16];
+        left[0] = nStates == 0 ? empty : base + sets.start(initialState);
+        right[0] = m == 0 ? m : dfa.initialState;
+        from[0] = -1;
+        int[] parent = nodes(new int[0], base + sets.nSets());
+        parent[left[0]] = right[0];
+        int count = 1;
+        int[] next = new int[k];
+        for (int i = 0; i < count; i++) {
+            int set = left[i] - base;
+            int q = right[i];
+            boolean pFinal = set >= 0 && sets.isFinal(set);
+            boolean qFinal = q < m && dfa.finalStates[q];
+            if (pFinal != qFinal) {
+                LinkedList<String> word = new LinkedList<>();
+                for (int j = i; from[j] != -1; j = from[j]) {
+                    word.addFirst(symbols.get(via[j]));
+                }
+                return word;
+            }
+            if (set >= 0) {
+                sets.successors(set, next);
+                parent = nodes(parent, base + sets.nSets());
+            }
+            for (int x = 0; x < symbols.size(); x++) {
+                int p2 = set < 0 || x >= k || next[x] == -1 ? empty : base + next[x];
+                int q2 = q == m || theirs[x] == -1 ? -1 : dfa.next(q, theirs[x]);
+                q2 = q2 == -1 ? m : q2;
+                int rp = DFA.find(parent, p2);
+                int rq = DFA.find(parent, q2);
+                if (rp != rq) {
+                    parent[rp] = rq;
+                    if (count == left.length) {
+                        left = Arrays.copyOf(left, 2 * count);
+                        right = Arrays.copyOf(right, 2 * count);
+                        from = Arrays.copyOf(from, 2 * count);
+                        via = Arrays.copyOf(via, 2 * count);
+                    }
+                    left[count] = p2;
+                    right[count] = q2;
+                    from[count] = i;
+                    via[count++] = x;
+                }
+            }
+        }
+        return null;
+    }
+
+    // Grows the union-find to n nodes, the new ones in sets of their own
+    private static int[] nodes(int[] parent, int n) {
+        if (parent.length >= n) {
+            return parent;
+        }
+        int old = parent.length;
+        parent = Arrays.copyOf(parent, Math.max(n, 2 * old));
+        for (int i = old; i < parent.length; i++) {
+            parent[i] = i;
+        }
+        return parent;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder str = new StringBuilder("\n");
+        str.append("Number of States: ").append(nStates).append('\n');
+        str.append("Initial state: q").append(initialState).append('\n');
+        str.append("Final states: ");
+        for (int i = 0; i < nStates; i++) {
+            if (finalStates[i]) {
+                str.append('q').append(i).append(' ');
+            }
+        }
+        str.append('\n');
+        for (int s = 0; s < nStates; s++) {
+            for (int e = edgeStart[s]; e < edgeStart[s + 1]; e++) {
+                String symbol = edgeSymbol[e] == -1 ? "the empty word" : symbolSet.get(edgeSymbol[e]);
+                str.append('q').append(s).append(" -> q").append(edgeTarget[e]).append(" on ").append(symbol)
+                        .append('\n');
+            }
+        }
+        return str.toString();
+    }
+
+    // Starts from the final states themselves rather than from the new initial state of
+    // reverse(), which would otherwise be a set of its own equivalent to another one
+    private static DFA determinizeReverse(NFA nfa) {
+        int[] finals = new int[nfa.nStates];
+        int nFinals = 0;
+        for (int s = 0; s < nfa.nStates; s++) {
+            if (nfa.finalStates[s]) {
+                finals[nFinals++] = s;
+            }
+        }
+        return new SubsetConstruction(nfa.reverse()).run(Arrays.copyOf(finals, nFinals));
+    }
+}
+
+// State of one subset construction, dropped once the DFA is built
+class SubsetConstruction {
+    private final NFA nfa;
+    private final int k;
+    // Scratch set and its members, in insertion order
+    private final long[] bits;
+    private int[] members;
+    private int size;
+    // Interned sets: members of set i are pool[setStart[i]..setStart[i + 1])
+    private int[] pool = new int[64];
+    private int[] setStart = new int[17];
+    private int[] setHash = new int[16];
+    private int nSets;
+    // Open-addressed index of the sets, -1 marks an empty slot
+    private int[] index = new int[32];
+    // Targets of the current set, bucketed by symbol
+    private final int[][] targets;
+    private final int[] targetCount;
+
+    SubsetConstruction(NFA nfa) {
+        this.nfa = nfa;
+        this.k = nfa.symbolSet.size();
+        bits = new long[(nfa.nStates + 63) >>> 6];
+        members = new int[16];
+        targets = new int[k][16];
+        targetCount = new int[k];
+        Arrays.fill(index, -1);
+    }
+
+    // The initial set is the closure of the given states
+    DFA run(int... initialStates) {
+        if (nfa.nStates == 0) {
+            return new DFA(0, new ArrayList<>(nfa.symbolSet));
+        }
+        int[] delta = new int[16 * k];
+        boolean[] finals = new boolean[16];
+
+        start(initialStates);
+        int[] next = new int[k];
+        for (int set = 0; set < nSets; set++) {
+            if (set >= finals.length) {
+                delta = Arrays.copyOf(delta, 2 * finals.length * k);
+                finals = Arrays.copyOf(finals, 2 * finals.length);
+            }
+            finals[set] = isFinal(set);
+            successors(set, next);
+            System.arraycopy(next, 0, delta, set * k, k);
+        }
+        return new DFA(nSets, new ArrayList<>(nfa.symbolSet), 0, Arrays.copyOf(finals, nSets),
+                Arrays.copyOf(delta, nSets * k));
+    }
+
+    // Interns the closure of the given states, the first set interned is set 0
+    int start(int... states) {
+        for (int state : states) {
+            add(state);
+        }
+        return intern();
+    }
+
+    int nSets() {
+        return nSets;
+    }
+
+    boolean isFinal(int set) {
+        for (int i = setStart[set]; i < setStart[set + 1]; i++) {
+            if (nfa.finalStates[pool[i]]) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // Interns the set reached from set on each symbol into next, -1 for the empty set
+    void successors(int set, int[] next) {
+        Arrays.fill(targetCount, 0);
+        for (int i = setStart[set]; i < setStart[set + 1]; i++) {
+            int p = pool[i];
+            for (int e = nfa.edgeStart[p]; e < nfa.edgeStart[p + 1]; e++) {
+                int a = nfa.edgeSymbol[e];
+                if (a != -1) {
+                    if (targetCount[a] == targets[a].length) {
+                        targets[a] = Arrays.copyOf(targets[a], 2 * targets[a].length);
+                    }
+                    targets[a][targetCount[a]++] = nfa.edgeTarget[e];
+                }
+            }
+        }
+        for (int a = 0; a < k; a++) {
+            for (int i = 0; i < targetCount[a]; i++) {
+                add(targets[a][i]);
+            }
+            next[a] = size == 0 ? -1 : intern();
+        }
+    }
+
+    // Adds the state and its closure under empty moves to the scratch set
+    private void add(int state) {
+        if (contains(state)) {
+            return;
+        }
+        int first = size;
+        insert(state);
+        for (int i = first; i < size; i++) {
+            int p = members[i];
+            for (int e = nfa.edgeStart[p]; e < nfa.edgeStart[p + 1]; e++) {
+                if (nfa.edgeSymbol[e] == -1 && !contains(nfa.edgeTarget[e])) {
+                    insert(nfa.edgeTarget[e]);
+                }
+            }
+        }
+    }
+
+    private boolean contains(int state) {
+        return (bits[state >>> 6] & (1L << state)) != 0;
+    }
+
+    private void insert(int state) {
+        bits[state >>> 6] |= 1L << state;
+        if (size == members.length) {
+            members = Arrays.copyOf(members, 2 * size);
+        }
+        members[size++] = state;
+    }
+
+    /**
+     * Looks up the scratch set, adding it if it is new, and clears it.
+     *
+     * @return The id of the set.
+     */
+    private int intern() {
+        Arrays.sort(members, 0, size);
+        int hash = 1;
+        for (int i = 0; i < size; i++) {
+            bits[members[i] >>> 6] = 0;
+            hash = 31 * hash + members[i];
+        }
+        hash ^= hash >>> 16;
+        int mask = index.length - 1;
+        int slot = hash & mask;
+        while (index[slot] != -1) {
+            int set = index[slot];
+            if (setHash[set] == hash && sameMembers(set)) {
+                size = 0;
+                return set;
+            }
+            slot = (slot + 1) & mask;
+        }
+        int set = nSets++;
+        index[slot] = set;
+        if (nSets == setHash.length) {
+            setHash = Arrays.copyOf(setHash, 2 * nSets);
+            setStart = Arrays.copyOf(setStart, 2 * nSets + 1);
+        }
+        setHash[set] = hash;
+        if (setStart[set] + size > pool.length) {
+            pool = Arrays.copyOf(pool, Math.max(2 * pool.length, setStart[set] + size));
+        }
+        System.arraycopy(members, 0, pool, setStart[set], size);
+        setStart[set + 1] = setStart[set] + size;
+        size = 0;
+        if (2 * nSets > index.length) {
+            rehash();
+        }
+        return set;
+    }
+
+    private boolean sameMembers(int set) {
+        if (setStart[set + 1] - setStart[set] != size) {
+            return false;
+        }
+        return Arrays.equals(pool, setStart[set], setStart[set + 1], members, 0, size);
+    }
+
+    private void rehash() {
+        index = new int[2 * index.length];
+        Arrays.fill(index, -1);
+        int mask = index.length - 1;
+        for (int set = 0; set < nSets; set++) {
+            int slot = setHash[set] & mask;
+            while (index[slot] != -1) {
+                slot = (slot + 1) & mask;
+            }
+            index[slot] = set;
+        }
+    }
+}
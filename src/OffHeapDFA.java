@@ -0,0 +1,451 @@
+/**
+ * @authors https://github.com/ravixr/dfa-minimization
+ */
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * DFA whose transitions live outside the Java heap, for automata too large for it. Every
+ * array, including those of its minimizer, is an OffHeapIntArray: direct memory, or pages of
+ * a temporary file in the given directory. Direct memory is limited by -XX:MaxDirectMemorySize,
+ * which defaults to the heap size, so large automata should use a directory.
+ */
+class OffHeapDFA implements Automaton {
+    private final int nStates;
+    private final List<String> symbolSet;
+    private final int k;
+    private int initialState;
+    private final Path directory;
+    // Transition table (nStates * k, -1 for a missing transition) and final states bitset
+    private final OffHeapIntArray transitions;
+    private final OffHeapIntArray finals;
+
+    /**
+     * @param directory Directory for the temporary files, or null to use direct memory.
+     */
+    public OffHeapDFA(int nStates, List<String> symbolSet, Path directory) {
+        this.nStates = nStates;
+        this.symbolSet = new ArrayList<>(symbolSet);
+        this.k = symbolSet.size();
+        this.directory = directory;
+        transitions = new OffHeapIntArray((long) nStates * k, directory);
+        transitions.fill(-1);
+        finals = new OffHeapIntArray((nStates + 31) / 32, directory);
+    }
+
+    public static OffHeapDFA copyOf(Automaton dfa, Path directory) {
+        OffHeapDFA copy = new OffHeapDFA(dfa.nStates(), dfa.symbolSet(), directory);
+        copy.initialState = dfa.initialState();
+        for (int s = 0; s < dfa.nStates(); s++) {
+            copy.setFinal(s, dfa.isFinal(s));
+            for (int a = 0; a < copy.k; a++) {
+                copy.setTransition(s, a, dfa.next(s, a));
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Streams a file in the binary format (see BinaryDFA) to off-heap memory, so the file may
+     * be larger than what can be mapped at once.
+     */
+    public static OffHeapDFA load(Path path, Path directory) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            IntReader in = new IntReader(channel);
+            if (in.next() != BinaryDFA.MAGIC) {
+                throw new IOException("Not a binary DFA file");
+            }
+            int version = in.next();
+            if (version != BinaryDFA.VERSION) {
+                throw new IOException("Unsupported binary DFA version " + version);
+            }
+            int nStates = in.next();
+            int k = in.next();
+            int initialState = in.next();
+            List<String> symbolSet = new ArrayList<>(k);
+            for (int a = 0; a < k; a++) {
+                int length = in.next();
+                byte[] bytes = new byte[(length + 3) & ~3];
+                for (int i = 0; i < bytes.length; i += 4) {
+                    int word = in.next();
+                    for (int j = 0; j < 4; j++) {
+                        bytes[i + j] = (byte) (word >>> (24 - 8 * j));
+                    }
+                }
+                symbolSet.add(new String(bytes, 0, length, StandardCharsets.UTF_8));
+            }
+            OffHeapDFA dfa = new OffHeapDFA(nStates, symbolSet, directory);
+            dfa.initialState = initialState;
+            // The file and the bitset both put state s at bit s % 32 of word s / 32
+            for (long w = 0; w < dfa.finals.length(); w++) {
+                dfa.finals.set(w, in.next());
+            }
+            for (long i = 0; i < dfa.transitions.length(); i++) {
+                dfa.transitions.set(i, in.next());
+            }
+            return dfa;
+        }
+    }
+
+    // Big-endian ints read in blocks from a channel
+    private static class IntReader {
+        private final FileChannel channel;
+        private final ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+
+        IntReader(FileChannel channel) {
+            this.channel = channel;
+            buffer.limit(0);
+        }
+
+        int next() throws IOException {
+            if (buffer.remaining() < 4) {
+                buffer.compact();
+                while (buffer.position() < 4) {
+                    if (channel.read(buffer) == -1) {
+                        throw new IOException("Truncated binary DFA file");
+                    }
+                }
+                buffer.flip();
+            }
+            return buffer.getInt();
+        }
+    }
+
+    public void write(Path path) throws IOException {
+        BinaryDFA.write(this, path);
+    }
+
+    public void setInitialState(int state) {
+        initialState = state;
+    }
+
+    public void setFinal(int state, boolean isFinal) {
+        int word = finals.get(state >>> 5);
+        int bit = 1 << (state & 31);
+        finals.set(state >>> 5, isFinal ? word | bit : word & ~bit);
+    }
+
+    public void setTransition(int from, int symbol, int to) {
+        transitions.set((long) from * k + symbol, to);
+    }
+
+    @Override
+    public int nStates() {
+        return nStates;
+    }
+
+    @Override
+    public List<String> symbolSet() {
+        return symbolSet;
+    }
+
+    @Override
+    public int initialState() {
+        return initialState;
+    }
+
+    @Override
+    public boolean isFinal(int state) {
+        return (finals.get(state >>> 5) & (1 << (state & 31))) != 0;
+    }
+
+    @Override
+    public int next(int state, int symbol) {
+        return transitions.get((long) state * k + symbol);
+    }
+
+    /**
+     * Hopcroft's algorithm O(kn log n) like DFA.hopcroftMinimization(Automaton), with every
+     * array off the heap. Only states reachable from the initial state are considered, and
+     * missing transitions go to an implicit sink that is dropped from the result. The number
+     * of transitions, including those of the sink, must fit in an int.
+     *
+     * @return A minimized version of the DFA, stored like this one.
+     */
+    public OffHeapDFA hopcroftMinimization() {
+        if (nStates == 0) {
+            OffHeapDFA min = new OffHeapDFA(0, symbolSet, directory);
+            min.initialState = -1;
+            return min;
+        }
+
+        // Renumber the reachable states
+        OffHeapIntArray id = array(nStates);
+        id.fill(-1);
+        OffHeapIntArray order = array(nStates);
+        int n = 0;
+        id.set(initialState, n);
+        order.set(n++, initialState);
+        for (int head = 0; head < n; head++) {
+            for (int a = 0; a < k; a++) {
+                int to = next(order.get(head), a);
+                if (to != -1 && id.get(to) == -1) {
+                    id.set(to, n);
+                    order.set(n++, to);
+                }
+            }
+        }
+        // The sink is always added, so states that cannot reach a final state merge into its
+        // block and are dropped with it even when the automaton is complete
+        int sink = n;
+        int size = n + 1;
+        if ((long) size * k >= Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Too many transitions: " + size + " x " + k);
+        }
+
+        OffHeapIntArray trans = array((long) size * k);
+        for (int s = 0; s < n; s++) {
+            for (int a = 0; a < k; a++) {
+                int to = next(order.get(s), a);
+                trans.set((long) s * k + a, to == -1 ? sink : id.get(to));
+            }
+        }
+        for (int a = 0; a < k; a++) {
+            trans.set((long) sink * k + a, sink);
+        }
+        id = null;
+
+        // Inverse transitions, grouped by (symbol, target)
+        OffHeapIntArray invStart = array((long) k * size + 1);
+        for (int s = 0; s < size; s++) {
+            for (int a = 0; a < k; a++) {
+                long i = (long) a * size + trans.get((long) s * k + a) + 1;
+                invStart.set(i, invStart.get(i) + 1);
+            }
+        }
+        for (long i = 0; i < (long) k * size; i++) {
+            invStart.set(i + 1, invStart.get(i + 1) + invStart.get(i));
+        }
+        OffHeapIntArray inv = array((long) size * k);
+        // The fill pointers reuse the space of the work list, which is not needed yet
+        OffHeapIntArray work = array((long) size * k);
+        for (long i = 0; i < (long) k * size; i++) {
+            work.set(i, invStart.get(i));
+        }
+        for (int s = 0; s < size; s++) {
+            for (int a = 0; a < k; a++) {
+                long i = (long) a * size + trans.get((long) s * k + a);
+                int pos = work.get(i);
+                work.set(i, pos + 1);
+                inv.set(pos, s);
+            }
+        }
+
+        // Initial partition: non-final states first, then final states
+        OffHeapIntArray elems = array(size);
+        OffHeapIntArray loc = array(size);
+        OffHeapIntArray block = array(size);
+        OffHeapIntArray first = array(size);
+        OffHeapIntArray end = array(size);
+        OffHeapIntArray marked = array(size);
+        int nFinal = 0;
+        for (int s = 0; s < n; s++) {
+            if (isFinal(order.get(s))) {
+                nFinal++;
+            }
+        }
+        int lo = 0;
+        int hi = size - nFinal;
+        for (int s = 0; s < size; s++) {
+            boolean isFinal = s < n && isFinal(order.get(s));
+            int pos = isFinal ? hi++ : lo++;
+            elems.set(pos, s);
+            loc.set(s, pos);
+            block.set(s, isFinal && nFinal < size ? 1 : 0);
+        }
+        int nBlocks = 0;
+        if (nFinal < size) {
+            first.set(nBlocks, 0);
+            end.set(nBlocks++, size - nFinal);
+        }
+        if (nFinal > 0) {
+            first.set(nBlocks, size - nFinal);
+            end.set(nBlocks++, size);
+        }
+
+        // Splitter worklist of (block, symbol) pairs, and a bitset of the pairs in it
+        OffHeapIntArray inWork = array(((long) size * k + 31) / 32);
+        int nWork = 0;
+        int smaller = nBlocks == 2 && nFinal < size - nFinal ? 1 : 0;
+        for (int a = 0; a < k; a++) {
+            setBit(inWork, smaller * k + a, true);
+            work.set(nWork++, smaller * k + a);
+        }
+
+        OffHeapIntArray splitter = array(size);
+        OffHeapIntArray touched = array(size);
+        while (nWork > 0) {
+            int w = work.get(--nWork);
+            setBit(inWork, w, false);
+            int c = w / k;
+            int a = w % k;
+
+            // Copy the splitter since marking may reorder it
+            int len = end.get(c) - first.get(c);
+            for (int i = 0; i < len; i++) {
+                splitter.set(i, elems.get(first.get(c) + i));
+            }
+
+            // Mark every predecessor of the splitter on symbol a
+            int nTouched = 0;
+            for (int i = 0; i < len; i++) {
+                long t = (long) a * size + splitter.get(i);
+                for (int j = invStart.get(t); j < invStart.get(t + 1); j++) {
+                    int s = inv.get(j);
+                    int b = block.get(s);
+                    int pos = first.get(b) + marked.get(b);
+                    int at = loc.get(s);
+                    if (at < pos) {
+                        continue;
+                    }
+                    if (marked.get(b) == 0) {
+                        touched.set(nTouched++, b);
+                    }
+                    int other = elems.get(pos);
+                    elems.set(pos, s);
+                    elems.set(at, other);
+                    loc.set(other, at);
+                    loc.set(s, pos);
+                    marked.set(b, marked.get(b) + 1);
+                }
+            }
+
+            // Split the touched blocks, the marked part becomes a new block
+            for (int i = 0; i < nTouched; i++) {
+                int b = touched.get(i);
+                int m = marked.get(b);
+                marked.set(b, 0);
+                if (m == end.get(b) - first.get(b)) {
+                    continue;
+                }
+                int nb = nBlocks++;
+                first.set(nb, first.get(b));
+                end.set(nb, first.get(b) + m);
+                first.set(b, end.get(nb));
+                for (int j = first.get(nb); j < end.get(nb); j++) {
+                    block.set(elems.get(j), nb);
+                }
+                boolean newSmaller = end.get(nb) - first.get(nb) <= end.get(b) - first.get(b);
+                for (int d = 0; d < k; d++) {
+                    int pick = getBit(inWork, b * k + d) || newSmaller ? nb : b;
+                    setBit(inWork, pick * k + d, true);
+                    work.set(nWork++, pick * k + d);
+                }
+            }
+        }
+
+        // Merge states in the same block, dropping the sink block
+        int sinkBlock = block.get(sink) != block.get(0) ? block.get(sink) : -1;
+        OffHeapIntArray newId = marked;
+        int m = 0;
+        for (int b = 0; b < nBlocks; b++) {
+            newId.set(b, b == sinkBlock ? -1 : m++);
+        }
+        OffHeapDFA min = new OffHeapDFA(m, symbolSet, directory);
+        min.initialState = m == 0 ? 0 : newId.get(block.get(0));
+        for (int b = 0; b < nBlocks; b++) {
+            if (b == sinkBlock) {
+                continue;
+            }
+            int s = elems.get(first.get(b));
+            if (s < n && isFinal(order.get(s))) {
+                min.setFinal(newId.get(b), true);
+            }
+            for (int a = 0; a < k; a++) {
+                int to = trans.get((long) s * k + a);
+                if (to != sink && block.get(to) != sinkBlock) {
+                    min.setTransition(newId.get(b), a, newId.get(block.get(to)));
+                }
+            }
+        }
+        return min;
+    }
+
+    private OffHeapIntArray array(long length) {
+        return new OffHeapIntArray(length, directory);
+    }
+
+    private static boolean getBit(OffHeapIntArray bits, int i) {
+        return (bits.get(i >>> 5) & (1 << (i & 31))) != 0;
+    }
+
+    private static void setBit(OffHeapIntArray bits, int i, boolean value) {
+        int word = bits.get(i >>> 5);
+        bits.set(i >>> 5, value ? word | (1 << (i & 31)) : word & ~(1 << (i & 31)));
+    }
+}
+
+/**
+ * Zero-filled int array indexed by long, split in pages of 2^28 ints (1 GiB) so it is not bound
+ * by the 2 GiB limit of a buffer. Pages are direct buffers, or mappings of a temporary file
+ * opened with DELETE_ON_CLOSE: the file goes away when the channel is closed on POSIX systems,
+ * and once the mappings are garbage collected on Windows, which cannot delete a mapped file.
+ * Either way the mappings keep its space until they are garbage collected.
+ */
+class OffHeapIntArray {
+    private static final int PAGE_SHIFT = 28;
+    private static final long PAGE_MASK = (1L << PAGE_SHIFT) - 1;
+
+    private final IntBuffer[] pages;
+    private final long length;
+
+    OffHeapIntArray(long length, Path directory) {
+        this.length = length;
+        int nPages = (int) ((length + PAGE_MASK) >>> PAGE_SHIFT);
+        pages = new IntBuffer[nPages];
+        try {
+            FileChannel channel = null;
+            if (directory != null && length > 0) {
+                Path file = Files.createTempFile(directory, "offheap", ".bin");
+                channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE,
+                        StandardOpenOption.DELETE_ON_CLOSE);
+            }
+            try {
+                for (int p = 0; p < nPages; p++) {
+                    long from = (long) p << PAGE_SHIFT;
+                    long bytes = 4 * Math.min(1L << PAGE_SHIFT, length - from);
+                    ByteBuffer page = channel == null ? ByteBuffer.allocateDirect((int) bytes)
+                            : channel.map(FileChannel.MapMode.READ_WRITE, 4 * from, bytes);
+                    pages[p] = page.order(ByteOrder.nativeOrder()).asIntBuffer();
+                }
+            } finally {
+                if (channel != null) {
+                    channel.close();
+                }
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public long length() {
+        return length;
+    }
+
+    public int get(long i) {
+        return pages[(int) (i >>> PAGE_SHIFT)].get((int) (i & PAGE_MASK));
+    }
+
+    public void set(long i, int value) {
+        pages[(int) (i >>> PAGE_SHIFT)].put((int) (i & PAGE_MASK), value);
+    }
+
+    public void fill(int value) {
+        for (IntBuffer page : pages) {
+            for (int i = 0; i < page.capacity(); i++) {
+                page.put(i, value);
+            }
+        }
+    }
+}
@@ -0,0 +1,269 @@
+/**
+ * @authors https://github.com/ravixr/dfa-minimization
+ */
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Product of two DFAs over the union of their alphabets, built from the initial pair by a
+ * breadth-first search so only reachable pairs get a state. Pairs are numbered through an
+ * open-addressed index keyed by the packed pair. Pairs that can never accept, or that reach
+ * no final pair, are left out as missing transitions. Missing transitions of either DFA go
+ * to an implicit sink.
+ */
+class ProductDFA implements Automaton {
+
+    public enum Operation {
+        INTERSECTION, UNION, DIFFERENCE, SYMMETRIC_DIFFERENCE;
+
+        public boolean accepts(boolean a, boolean b) {
+            switch (this) {
+                case INTERSECTION:
+                    return a && b;
+                case UNION:
+                    return a || b;
+                case DIFFERENCE:
+                    return a && !b;
+                default:
+                    return a != b;
+            }
+        }
+    }
+
+    private final List<String> symbolSet;
+    private final int k;
+    private int nStates;
+    private int[] delta;
+    private boolean[] finalStates;
+
+    // Open-addressed index of the pairs, keys are (p << 32 | q) and empty slots hold -1
+    private long[] keys;
+    private int[] ids;
+    // Pairs in the order they were numbered
+    private int[] left;
+    private int[] right;
+
+    public ProductDFA(DFA a, DFA b, Operation op) {
+        symbolSet = new ArrayList<>(a.symbolSet);
+        for (String symbol : b.symbolSet) {
+            if (a.symbolId(symbol) == -1) {
+                symbolSet.add(symbol);
+            }
+        }
+        k = symbolSet.size();
+        int[] symbolA = new int[k];
+        int[] symbolB = new int[k];
+        for (int s = 0; s < k; s++) {
+            symbolA[s] = a.symbolId(symbolSet.get(s));
+            symbolB[s] = b.symbolId(symbolSet.get(s));
+        }
+
+        int capacity = 16;
+        keys = new long[capacity * 2];
+        ids = new int[capacity * 2];
+        Arrays.fill(keys, -1);
+        left = new int[capacity];
+        right = new int[capacity];
+        delta = new int[capacity * k];
+        finalStates = new boolean[capacity];
+
+        // The sink of each DFA is its state count
+        int sinkA = a.nStates;
+        int sinkB = b.nStates;
+        // The initial pair is kept even if dead, its successors are then all dead
+        add(a.nStates == 0 ? sinkA : a.initialState, b.nStates == 0 ? sinkB : b.initialState);
+        for (int s = 0; s < nStates; s++) {
+            int p = left[s];
+            int q = right[s];
+            finalStates[s] = op.accepts(p != sinkA && a.finalStates[p], q != sinkB && b.finalStates[q]);
+            for (int x = 0; x < k; x++) {
+                int p2 = p == sinkA || symbolA[x] == -1 ? -1 : a.next(p, symbolA[x]);
+                int q2 = q == sinkB || symbolB[x] == -1 ? -1 : b.next(q, symbolB[x]);
+                p2 = p2 == -1 ? sinkA : p2;
+                q2 = q2 == -1 ? sinkB : q2;
+                // add() may grow delta, so it must run before delta is read
+                int to = dead(op, p2 == sinkA, q2 == sinkB) ? -1 : add(p2, q2);
+                delta[s * k + x] = to;
+            }
+        }
+        keys = null;
+        ids = null;
+        left = null;
+        right = null;
+        removeDeadPairs();
+    }
+
+    // Drops the pairs that reach no final pair, keeping the initial one
+    private void removeDeadPairs() {
+        int[] inStart = new int[nStates + 1];
+        for (int i = 0; i < nStates * k; i++) {
+            if (delta[i] != -1) {
+                inStart[delta[i] + 1]++;
+            }
+        }
+        for (int s = 0; s < nStates; s++) {
+            inStart[s + 1] += inStart[s];
+        }
+        int[] in = new int[inStart[nStates]];
+        int[] fill = Arrays.copyOf(inStart, nStates);
+        for (int i = 0; i < nStates * k; i++) {
+            if (delta[i] != -1) {
+                in[fill[delta[i]]++] = i / k;
+            }
+        }
+        boolean[] live = new boolean[nStates];
+        int[] queue = new int[nStates];
+        int tail = 0;
+        for (int s = 0; s < nStates; s++) {
+            if (finalStates[s]) {
+                live[s] = true;
+                queue[tail++] = s;
+            }
+        }
+        for (int head = 0; head < tail; head++) {
+            for (int i = inStart[queue[head]]; i < inStart[queue[head] + 1]; i++) {
+                if (!live[in[i]]) {
+                    live[in[i]] = true;
+                    queue[tail++] = in[i];
+                }
+            }
+        }
+        int[] id = new int[nStates];
+        int n = 0;
+        for (int s = 0; s < nStates; s++) {
+            id[s] = live[s] || s == 0 ? n++ : -1;
+        }
+        int[] trimmed = new int[n * k];
+        boolean[] finals = new boolean[n];
+        for (int s = 0; s < nStates; s++) {
+            if (id[s] != -1) {
+                finals[id[s]] = finalStates[s];
+                for (int x = 0; x < k; x++) {
+                    int to = delta[s * k + x];
+                    trimmed[id[s] * k + x] = to == -1 ? -1 : id[to];
+                }
+            }
+        }
+        nStates = n;
+        delta = trimmed;
+        finalStates = finals;
+    }
+
+    // A pair is dead if the sides that reached their sink alone decide rejection
+    private static boolean dead(Operation op, boolean sinkA, boolean sinkB) {
+        switch (op) {
+            case INTERSECTION:
+                return sinkA || sinkB;
+            case DIFFERENCE:
+                return sinkA;
+            default:
+                return sinkA && sinkB;
+        }
+    }
+
+    // Id of the pair, numbering it if it is new
+    private int add(int p, int q) {
+        long key = (long) p << 32 | q;
+        int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        while (keys[slot] != -1) {
+            if (keys[slot] == key) {
+                return ids[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        int id = nStates++;
+        keys[slot] = key;
+        ids[slot] = id;
+        if (id == left.length) {
+            grow();
+        }
+        left[id] = p;
+        right[id] = q;
+        return id;
+    }
+
+    // Doubles the pair arrays and the index, which stays at most half full
+    private void grow() {
+        int capacity = left.length * 2;
+        left = Arrays.copyOf(left, capacity);
+        right = Arrays.copyOf(right, capacity);
+        delta = Arrays.copyOf(delta, capacity * k);
+        finalStates = Arrays.copyOf(finalStates, capacity);
+        long[] oldKeys = keys;
+        int[] oldIds = ids;
+        keys = new long[capacity * 2];
+        ids = new int[capacity * 2];
+        Arrays.fill(keys, -1);
+        int mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != -1) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (keys[slot] != -1) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                ids[slot] = oldIds[i];
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+
+    /**
+     * Builds the reachable product, then minimizes it with Hopcroft's algorithm, which copies
+     * the transition table of the product into arrays of its own.
+     *
+     * @return The minimized DFA of op(a, b).
+     */
+    public static DFA minimize(DFA a, DFA b, Operation op) {
+        return minimize(a, b, op, MinimizationStats.disabled());
+    }
+
+    /**
+     * Like minimize(a, b, op), recording the phases and counters of the run in stats.
+     */
+    public static DFA minimize(DFA a, DFA b, Operation op, MinimizationStats stats) {
+        MinimizationStats.Phase phase = stats.begin("product");
+        ProductDFA product = new ProductDFA(a, b, op);
+        stats.end(phase);
+        phase = stats.begin("refine");
+        DFA min = DFA.hopcroftMinimization(product, stats);
+        stats.end(phase);
+        return min;
+    }
+
+    public DFA toDFA() {
+        return new DFA(nStates, new ArrayList<>(symbolSet), 0, finalStates.clone(), delta.clone());
+    }
+
+    @Override
+    public int nStates() {
+        return nStates;
+    }
+
+    @Override
+    public List<String> symbolSet() {
+        return symbolSet;
+    }
+
+    @Override
+    public int initialState() {
+        return 0;
+    }
+
+    @Override
+    public boolean isFinal(int state) {
+        return finalStates[state];
+    }
+
+    @Override
+    public int next(int state, int symbol) {
+        return delta[state * k + symbol];
+    }
+}
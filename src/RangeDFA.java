@@ -0,0 +1,431 @@
+/**
+ * @authors https://github.com/ravixr/dfa-minimization
+ */
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.UnaryOperator;
+import javax.xml.stream.XMLStreamException;
+
+/**
+ * DFA whose transitions read ranges of code points, so a Unicode or byte alphabet costs one
+ * edge per range instead of one symbol per character. Before minimizing, the code points are
+ * split into minterms, the classes of code points on which every state has the same
+ * transition, and the DFA over the classes is minimized by any of the minimizers of DFA: the
+ * work then depends on the number of distinct ranges and not on the size of the alphabet.
+ */
+class RangeDFA {
+    public final int nStates;
+    public final int initialState;
+    public final boolean[] finalStates;
+    // The edges of state s are [edgeStart[s], edgeStart[s + 1]), sorted, disjoint and
+    // coalesced; edge e reads the code points edgeLo[e]..edgeHi[e]
+    final int[] edgeStart;
+    final int[] edgeLo;
+    final int[] edgeHi;
+    final int[] edgeTarget;
+
+    // The first nEdges entries of from, lo, hi and to are the edges, in any order. Overlapping
+    // edges must have the same target, adjacent ones with the same target are merged.
+    RangeDFA(int nStates, int initialState, boolean[] finalStates, int[] from, int[] lo, int[] hi, int[] to,
+            int nEdges) {
+        this.nStates = nStates;
+        this.initialState = initialState;
+        this.finalStates = finalStates;
+        int[] start = new int[nStates + 1];
+        for (int e = 0; e < nEdges; e++) {
+            if (lo[e] < 0 || lo[e] > hi[e] || hi[e] > Character.MAX_CODE_POINT) {
+                throw new IllegalArgumentException("Invalid range: " + lo[e] + ".." + hi[e]);
+            }
+            start[from[e] + 1]++;
+        }
+        for (int s = 0; s < nStates; s++) {
+            start[s + 1] += start[s];
+        }
+        // Edges bucketed by state, as (lo << 32 | edge) so sorting a bucket sorts it by lo
+        long[] sorted = new long[nEdges];
+        int[] fill = Arrays.copyOf(start, nStates);
+        for (int e = 0; e < nEdges; e++) {
+            sorted[fill[from[e]]++] = (long) lo[e] << 32 | e;
+        }
+
+        edgeStart = new int[nStates + 1];
+        int[] eLo = new int[nEdges];
+        int[] eHi = new int[nEdges];
+        int[] eTarget = new int[nEdges];
+        int n = 0;
+        for (int s = 0; s < nStates; s++) {
+            Arrays.sort(sorted, start[s], start[s + 1]);
+            for (int i = start[s]; i < start[s + 1]; i++) {
+                int e = (int) sorted[i];
+                int last = n - 1;
+                if (n > edgeStart[s] && lo[e] <= eHi[last]) {
+                    if (to[e] != eTarget[last]) {
+                        throw new IllegalArgumentException("Overlapping ranges with different targets in state " + s);
+                    }
+                    eHi[last] = Math.max(eHi[last], hi[e]);
+                } else if (n > edgeStart[s] && lo[e] == eHi[last] + 1 && to[e] == eTarget[last]) {
+                    eHi[last] = hi[e];
+                } else {
+                    eLo[n] = lo[e];
+                    eHi[n] = hi[e];
+                    eTarget[n++] = to[e];
+                }
+            }
+            edgeStart[s + 1] = n;
+        }
+        edgeLo = Arrays.copyOf(eLo, n);
+        edgeHi = Arrays.copyOf(eHi, n);
+        edgeTarget = Arrays.copyOf(eTarget, n);
+    }
+
+    /**
+     * Every symbol of the DFA must be a single character. Consecutive characters leading to
+     * the same state become one range.
+     */
+    public static RangeDFA of(DFA dfa) {
+        int k = dfa.symbolSet.size();
+        int[] codePoint = new int[k];
+        for (int a = 0; a < k; a++) {
+            String symbol = dfa.symbolSet.get(a);
+            if (symbol.isEmpty() || symbol.codePointCount(0, symbol.length()) != 1) {
+                throw new IllegalArgumentException("Symbol is not a single character: " + symbol);
+            }
+            codePoint[a] = symbol.codePointAt(0);
+        }
+        int[] from = new int[dfa.nStates * k];
+        int[] cp = new int[dfa.nStates * k];
+        int[] to = new int[dfa.nStates * k];
+        int nEdges = 0;
+        for (int s = 0; s < dfa.nStates; s++) {
+            for (int a = 0; a < k; a++) {
+                if (dfa.next(s, a) != -1) {
+                    from[nEdges] = s;
+                    cp[nEdges] = codePoint[a];
+                    to[nEdges++] = dfa.next(s, a);
+                }
+            }
+        }
+        return new RangeDFA(dfa.nStates, dfa.initialState, dfa.finalStates.clone(), from, cp, cp, to, nEdges);
+    }
+
+    /**
+     * Reads a JFLAP file, whose transitions read single characters, into ranges.
+     */
+    public static RangeDFA load(Path path) throws IOException, XMLStreamException {
+        return of(JFLAPLoader.load(path));
+    }
+
+    /**
+     * Like load(path), recording the parse as a phase of stats.
+     */
+    public static RangeDFA load(Path path, MinimizationStats stats) throws IOException, XMLStreamException {
+        return of(JFLAPLoader.load(path, stats));
+    }
+
+    /**
+     * JFLAP has no ranges, so every code point of a range gets its own transition.
+     */
+    public void writeJFLAPXML(Path path) throws IOException {
+        toDFA().writeJFLAPXML(path);
+    }
+
+    /**
+     * Expands the ranges into one symbol per code point read by some edge, in increasing order.
+     *
+     * @return A DFA accepting the same words.
+     */
+    public DFA toDFA() {
+        // Union of all the ranges, and the index of the first symbol of each of its intervals
+        long[] ranges = new long[edgeLo.length];
+        for (int e = 0; e < edgeLo.length; e++) {
+            ranges[e] = (long) edgeLo[e] << 32 | edgeHi[e];
+        }
+        Arrays.sort(ranges);
+        int[] unionLo = new int[ranges.length];
+        int[] unionHi = new int[ranges.length];
+        int nUnion = 0;
+        for (long range : ranges) {
+            int lo = (int) (range >>> 32);
+            int hi = (int) range;
+            if (nUnion > 0 && lo <= unionHi[nUnion - 1] + 1) {
+                unionHi[nUnion - 1] = Math.max(unionHi[nUnion - 1], hi);
+            } else {
+                unionLo[nUnion] = lo;
+                unionHi[nUnion++] = hi;
+            }
+        }
+        int[] firstSymbol = new int[nUnion + 1];
+        List<String> symbolSet = new ArrayList<>();
+        for (int i = 0; i < nUnion; i++) {
+            firstSymbol[i] = symbolSet.size();
+            for (int c = unionLo[i]; c <= unionHi[i]; c++) {
+                symbolSet.add(Character.toString(c));
+            }
+        }
+        firstSymbol[nUnion] = symbolSet.size();
+
+        int k = symbolSet.size();
+        int[] delta = new int[nStates * k];
+        Arrays.fill(delta, -1);
+        for (int s = 0; s < nStates; s++) {
+            for (int e = edgeStart[s]; e < edgeStart[s + 1]; e++) {
+                int i = Arrays.binarySearch(unionLo, 0, nUnion, edgeLo[e]);
+                i = i >= 0 ? i : -i - 2;
+                int a = firstSymbol[i] + edgeLo[e] - unionLo[i];
+                Arrays.fill(delta, s * k + a, s * k + a + edgeHi[e] - edgeLo[e] + 1, edgeTarget[e]);
+            }
+        }
+        return new DFA(nStates, symbolSet, initialState, finalStates.clone(), delta);
+    }
+
+    public int nEdges() {
+        return edgeTarget.length;
+    }
+
+    /**
+     * @return The state reached from state on the code point, or -1 if undefined.
+     */
+    public int next(int state, int codePoint) {
+        int lo = edgeStart[state];
+        int hi = edgeStart[state + 1] - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (edgeHi[mid] < codePoint) {
+                lo = mid + 1;
+            } else if (edgeLo[mid] > codePoint) {
+                hi = mid - 1;
+            } else {
+                return edgeTarget[mid];
+            }
+        }
+        return -1;
+    }
+
+    public boolean accepts(String word) {
+        if (nStates == 0) {
+            return false;
+        }
+        int state = initialState;
+        for (int i = 0; i < word.length() && state != -1; i += Character.charCount(word.codePointAt(i))) {
+            state = next(state, word.codePointAt(i));
+        }
+        return state != -1 && finalStates[state];
+    }
+
+    /**
+     * Minimizes the DFA over the minterms with the given minimizer, e.g.
+     * {@code minimize(dfa -> dfa.valmariMinimization())}, and reads its transitions back as
+     * ranges.
+     *
+     * @return A minimized version of the DFA.
+     */
+    public RangeDFA minimize(UnaryOperator<DFA> minimizer) {
+        return minimize(minimizer, MinimizationStats.disabled());
+    }
+
+    /**
+     * Like minimize(minimizer), recording the minterms and the conversion back to ranges as
+     * phases of stats. Pass the same stats to the minimizer to record its phases as well, e.g.
+     * {@code minimize(dfa -> dfa.valmariMinimization(stats), stats)}.
+     */
+    public RangeDFA minimize(UnaryOperator<DFA> minimizer, MinimizationStats stats) {
+        if (nStates == 0) {
+            return this;
+        }
+        MinimizationStats.Phase phase = stats.begin("minterms");
+        Minterms minterms = new Minterms(this);
+        DFA classes = minterms.toDFA(this);
+        stats.end(phase);
+        DFA min = minimizer.apply(classes);
+        phase = stats.begin("ranges");
+        RangeDFA result = minterms.toRanges(min);
+        stats.end(phase);
+        return result;
+    }
+
+    public RangeDFA hopcroftMinimization() {
+        return minimize(dfa -> dfa.hopcroftMinimization());
+    }
+
+    /**
+     * Like hopcroftMinimization(), recording the phases and counters of the run in stats.
+     */
+    public RangeDFA hopcroftMinimization(MinimizationStats stats) {
+        return minimize(dfa -> dfa.hopcroftMinimization(stats), stats);
+    }
+}
+
+/**
+ * Partition of the code points into minterms. The bounds of all the ranges cut the code
+ * points into elementary intervals, which start in one class and are refined state by state:
+ * every interval a state reads moves to a new class keyed by its old class and its target.
+ * The work is the number of (edge, interval) pairs, however wide the ranges are. Intervals
+ * read by no edge are left out.
+ */
+class Minterms {
+    // Interval i is bounds[i]..bounds[i + 1] - 1
+    final int[] bounds;
+    // Class of every interval, -1 if no edge reads it
+    final int[] intervalClass;
+    final int nClasses;
+
+    Minterms(RangeDFA dfa) {
+        int nEdges = dfa.nEdges();
+        int[] cuts = new int[2 * nEdges];
+        for (int e = 0; e < nEdges; e++) {
+            cuts[2 * e] = dfa.edgeLo[e];
+            cuts[2 * e + 1] = dfa.edgeHi[e] + 1;
+        }
+        Arrays.sort(cuts);
+        int nBounds = 0;
+        for (int i = 0; i < cuts.length; i++) {
+            if (nBounds == 0 || cuts[i] != cuts[nBounds - 1]) {
+                cuts[nBounds++] = cuts[i];
+            }
+        }
+        bounds = Arrays.copyOf(cuts, nBounds);
+        int nIntervals = Math.max(0, nBounds - 1);
+
+        // Class ids are never reused, so intervals a state does not read keep a valid class.
+        // Class 0 is read by no edge.
+        int[] cls = new int[nIntervals];
+        int nIds = 1;
+        // Open-addressed (old class, target) -> new class, cleared through the used slots
+        long[] keys = new long[16];
+        int[] values = new int[16];
+        Arrays.fill(keys, -1);
+        int[] used = new int[8];
+        for (int s = 0; s < dfa.nStates; s++) {
+            int nRead = 0;
+            for (int e = dfa.edgeStart[s]; e < dfa.edgeStart[s + 1]; e++) {
+                nRead += interval(dfa.edgeHi[e] + 1) - interval(dfa.edgeLo[e]);
+            }
+            if (2 * nRead > keys.length) {
+                int capacity = Integer.highestOneBit(2 * nRead - 1) << 1;
+                keys = new long[capacity];
+                values = new int[capacity];
+                Arrays.fill(keys, -1);
+                used = new int[capacity / 2];
+            }
+            int mask = keys.length - 1;
+            int nUsed = 0;
+            for (int e = dfa.edgeStart[s]; e < dfa.edgeStart[s + 1]; e++) {
+                for (int i = interval(dfa.edgeLo[e]), end = interval(dfa.edgeHi[e] + 1); i < end; i++) {
+                    long key = (long) cls[i] << 32 | dfa.edgeTarget[e];
+                    long h = key * 0x9E3779B97F4A7C15L;
+                    int slot = (int) (h ^ (h >>> 32)) & mask;
+                    while (keys[slot] != -1 && keys[slot] != key) {
+                        slot = (slot + 1) & mask;
+                    }
+                    if (keys[slot] == -1) {
+                        keys[slot] = key;
+                        values[slot] = nIds++;
+                        used[nUsed++] = slot;
+                    }
+                    cls[i] = values[slot];
+                }
+            }
+            for (int i = 0; i < nUsed; i++) {
+                keys[used[i]] = -1;
+            }
+        }
+
+        // Renumber the classes in order of their first interval
+        int[] id = new int[nIds];
+        Arrays.fill(id, -1);
+        int count = 0;
+        for (int i = 0; i < nIntervals; i++) {
+            if (cls[i] != 0 && id[cls[i]] == -1) {
+                id[cls[i]] = count++;
+            }
+            cls[i] = cls[i] == 0 ? -1 : id[cls[i]];
+        }
+        intervalClass = cls;
+        nClasses = count;
+    }
+
+    // Index of the interval starting at the bound
+    private int interval(int bound) {
+        return Arrays.binarySearch(bounds, bound);
+    }
+
+    /**
+     * @return The DFA over the classes, each one a symbol named after its ranges.
+     */
+    DFA toDFA(RangeDFA dfa) {
+        int k = nClasses;
+        int[] delta = new int[dfa.nStates * k];
+        Arrays.fill(delta, -1);
+        for (int s = 0; s < dfa.nStates; s++) {
+            for (int e = dfa.edgeStart[s]; e < dfa.edgeStart[s + 1]; e++) {
+                for (int i = interval(dfa.edgeLo[e]), end = interval(dfa.edgeHi[e] + 1); i < end; i++) {
+                    delta[s * k + intervalClass[i]] = dfa.edgeTarget[e];
+                }
+            }
+        }
+        return new DFA(dfa.nStates, labels(), dfa.initialState, dfa.finalStates.clone(), delta);
+    }
+
+    // Every class is written as the list of its ranges, letters and digits as themselves
+    private List<String> labels() {
+        StringBuilder[] labels = new StringBuilder[nClasses];
+        for (int i = 0; i < intervalClass.length; i++) {
+            int c = intervalClass[i];
+            if (c == -1) {
+                continue;
+            }
+            if (labels[c] == null) {
+                labels[c] = new StringBuilder("[");
+            }
+            labels[c].append(format(bounds[i]));
+            if (bounds[i + 1] - 1 > bounds[i]) {
+                labels[c].append('-').append(format(bounds[i + 1] - 1));
+            }
+        }
+        List<String> symbolSet = new ArrayList<>(nClasses);
+        for (StringBuilder label : labels) {
+            symbolSet.add(label.append(']').toString());
+        }
+        return symbolSet;
+    }
+
+    private static String format(int codePoint) {
+        return Character.isLetterOrDigit(codePoint) ? Character.toString(codePoint)
+                : String.format("\\x{%X}", codePoint);
+    }
+
+    /**
+     * @return The DFA with the transitions of the DFA over the classes read back as ranges.
+     */
+    RangeDFA toRanges(DFA dfa) {
+        int nEdges = 0;
+        for (int s = 0; s < dfa.nStates; s++) {
+            for (int i = 0; i < intervalClass.length; i++) {
+                if (intervalClass[i] != -1 && dfa.next(s, intervalClass[i]) != -1) {
+                    nEdges++;
+                }
+            }
+        }
+        int[] from = new int[nEdges];
+        int[] lo = new int[nEdges];
+        int[] hi = new int[nEdges];
+        int[] to = new int[nEdges];
+        int e = 0;
+        for (int s = 0; s < dfa.nStates; s++) {
+            for (int i = 0; i < intervalClass.length; i++) {
+                int target = intervalClass[i] == -1 ? -1 : dfa.next(s, intervalClass[i]);
+                if (target != -1) {
+                    from[e] = s;
+                    lo[e] = bounds[i];
+                    hi[e] = bounds[i + 1] - 1;
+                    to[e++] = target;
+                }
+            }
+        }
+        return new RangeDFA(dfa.nStates, dfa.initialState, dfa.finalStates.clone(), from, lo, hi, to, nEdges);
+    }
+}
@@ -0,0 +1,87 @@
+/**
+ * @authors https://github.com/ravixr/dfa-minimization
+ */
+
+// Refinable partition of the elements 0..n-1 (Valmari & Lehtinen, 2008)
+class RefinablePartition {
+    // Number of sets
+    public int z;
+    // Elements ordered by set, and the position of each element in it
+    public int[] elems;
+    public int[] loc;
+    // Set of each element
+    public int[] set;
+    // Each set s occupies elems[first[s]..end[s])
+    public int[] first;
+    public int[] end;
+    // Marked elements are moved to the start of their set
+    private int[] marked;
+    private int[] touched;
+    private int nTouched;
+
+    public RefinablePartition(int n) {
+        elems = new int[n];
+        loc = new int[n];
+        set = new int[n];
+        first = new int[n];
+        end = new int[n];
+        marked = new int[n];
+        touched = new int[n];
+        for (int i = 0; i < n; i++) {
+            elems[i] = i;
+            loc[i] = i;
+        }
+        z = n > 0 ? 1 : 0;
+        if (z > 0) {
+            end[0] = n;
+        }
+    }
+
+    public int size(int s) {
+        return end[s] - first[s];
+    }
+
+    public void mark(int e) {
+        int s = set[e];
+        int i = first[s] + marked[s];
+        if (loc[e] < i) {
+            return;
+        }
+        elems[loc[e]] = elems[i];
+        loc[elems[i]] = loc[e];
+        elems[i] = e;
+        loc[e] = i;
+        if (marked[s]++ == 0) {
+            touched[nTouched++] = s;
+        }
+    }
+
+    /**
+     * Splits every set with marked elements into its marked and unmarked parts.
+     * The smaller part becomes a new set.
+     */
+    public void split() {
+        while (nTouched > 0) {
+            int s = touched[--nTouched];
+            int j = first[s] + marked[s];
+            if (j == end[s]) {
+                marked[s] = 0;
+                continue;
+            }
+            if (marked[s] <= end[s] - j) {
+                first[z] = first[s];
+                end[z] = j;
+                first[s] = j;
+            } else {
+                end[z] = end[s];
+                first[z] = j;
+                end[s] = j;
+            }
+            for (int i = first[z]; i < end[z]; i++) {
+                set[elems[i]] = z;
+            }
+            marked[s] = 0;
+            marked[z++] = 0;
+        }
+    }
+}